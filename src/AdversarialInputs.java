@@ -0,0 +1,83 @@
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Inputs that push the priority search of {@link Solution} past linear.
+ *
+ * It only goes quadratic when many centers expand far and still lose: long
+ * runs of one character, away from the middle and broken up so that no run
+ * is the answer early. Each family here builds that shape a different way.
+ */
+final class AdversarialInputs {
+
+    static final String[] FAMILIES = {
+            "threeBlocks", "cycledBlocks", "growingRuns", "offCenterRun", "runsAroundNoise"
+    };
+
+    private AdversarialInputs() {
+    }
+
+    static String generate(String family, int n, long seed) {
+        Random r = new Random(seed);
+        char[] chars = new char[n];
+        switch (family) {
+            case "threeBlocks": {
+                // a^(n/3) b^(n/3) c^(n/3), as in WorstCaseTest
+                int blockSize = n / 3;
+                Arrays.fill(chars, 0, blockSize, 'a');
+                Arrays.fill(chars, blockSize, 2 * blockSize, 'b');
+                Arrays.fill(chars, 2 * blockSize, n, 'c');
+                break;
+            }
+            case "cycledBlocks": {
+                // sqrt(n) blocks of a, b, c, a, b, c, ...
+                int blockSize = Math.max(1, (int) Math.sqrt(n));
+                for (int i = 0; i < n; i++) {
+                    chars[i] = (char) ('a' + (i / blockSize) % 3);
+                }
+                break;
+            }
+            case "growingRuns": {
+                // a b^1 a b^2 a b^3 ...: every run is longer than the last,
+                // so no two runs mirror each other
+                int i = 0;
+                for (int run = 1; i < n; run++) {
+                    chars[i++] = 'a';
+                    for (int k = 0; k < run && i < n; k++) {
+                        chars[i++] = 'b';
+                    }
+                }
+                break;
+            }
+            case "offCenterRun": {
+                // Random text around one run of n/4 starting at n/8, so the
+                // middle holds no long palindrome
+                for (int i = 0; i < n; i++) {
+                    chars[i] = (char) ('a' + r.nextInt(26));
+                }
+                Arrays.fill(chars, n / 8, n / 8 + n / 4, 'z');
+                break;
+            }
+            case "runsAroundNoise": {
+                // Runs of a random letter, 1 to 2 sqrt(n) long, split by
+                // single random characters
+                int maxRun = Math.max(1, 2 * (int) Math.sqrt(n));
+                int i = 0;
+                while (i < n) {
+                    char c = (char) ('a' + r.nextInt(3));
+                    int run = 1 + r.nextInt(maxRun);
+                    for (int k = 0; k < run && i < n; k++) {
+                        chars[i++] = c;
+                    }
+                    if (i < n) {
+                        chars[i++] = (char) ('d' + r.nextInt(23));
+                    }
+                }
+                break;
+            }
+            default:
+                throw new IllegalArgumentException("Unknown family: " + family);
+        }
+        return new String(chars);
+    }
+}
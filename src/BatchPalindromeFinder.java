@@ -0,0 +1,187 @@
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Longest palindromes of many short strings per call.
+ *
+ * The strings are packed into one contiguous buffer described by a bounds
+ * array: string i is data[bounds[i], bounds[i + 1]). The batch is cut into
+ * chunks of about {@link #DEFAULT_CHUNK_CHARS} characters, small enough to
+ * stay in cache, which workers claim from a shared counter as in the other
+ * parallel engines. Every string is searched in place by the configured
+ * {@link PalindromeFinder}, so nothing is allocated per string.
+ *
+ * Results are (start, length) pairs in one int[]: results[2 * i] is the start
+ * of string i's longest palindrome relative to that string, and
+ * results[2 * i + 1] its length.
+ */
+public final class BatchPalindromeFinder {
+
+    /**
+     * Default number of characters a worker claims at a time.
+     */
+    public static final int DEFAULT_CHUNK_CHARS = 1 << 15;
+
+    private final PalindromeFinder finder;
+    private final ForkJoinPool pool;
+    private final int chunkChars;
+
+    /**
+     * Priority search on the common pool.
+     */
+    public BatchPalindromeFinder() {
+        this(PalindromeFinder.priority(), ForkJoinPool.commonPool(), DEFAULT_CHUNK_CHARS);
+    }
+
+    public BatchPalindromeFinder(PalindromeFinder finder, ForkJoinPool pool, int chunkChars) {
+        if (chunkChars <= 0) {
+            throw new IllegalArgumentException("chunkChars <= 0: " + chunkChars);
+        }
+        this.finder = Objects.requireNonNull(finder, "finder");
+        this.pool = Objects.requireNonNull(pool, "pool");
+        this.chunkChars = chunkChars;
+    }
+
+    public PalindromeFinder getFinder() {
+        return finder;
+    }
+
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    /**
+     * Packs inputs into the calling thread's workspace and searches them.
+     */
+    public int[] longestPalindromes(List<? extends CharSequence> inputs) {
+        int count = inputs.size();
+        int[] bounds = new int[count + 1];
+        long total = 0;
+        for (int i = 0; i < count; i++) {
+            total += inputs.get(i).length();
+            if (total > Integer.MAX_VALUE - 8) {
+                throw new IllegalArgumentException("batch too large: more than " + total + " chars");
+            }
+            bounds[i + 1] = (int) total;
+        }
+
+        PalindromeWorkspace ws = PalindromeWorkspace.current();
+        char[] data = ws.chars((int) total);
+        for (int i = 0; i < count; i++) {
+            CharSequence s = inputs.get(i);
+            if (s instanceof String) {
+                ((String) s).getChars(0, s.length(), data, bounds[i]);
+            } else {
+                for (int j = 0; j < s.length(); j++) {
+                    data[bounds[i] + j] = s.charAt(j);
+                }
+            }
+        }
+
+        int[] results = new int[2 * count];
+        search(data, bounds, count, results);
+        ws.release();
+        return results;
+    }
+
+    public int[] longestPalindromes(char[] data, int[] bounds) {
+        int count = checkBounds(bounds, data.length);
+        int[] results = new int[2 * count];
+        search(data, bounds, count, results);
+        return results;
+    }
+
+    /**
+     * Reads each byte as one (Latin-1) character.
+     */
+    public int[] longestPalindromes(byte[] data, int[] bounds) {
+        int count = checkBounds(bounds, data.length);
+        int[] results = new int[2 * count];
+        search(data, bounds, count, results);
+        return results;
+    }
+
+    /**
+     * Allocation-free variant: writes into results, which must hold 2 * count
+     * ints.
+     */
+    public void longestPalindromes(char[] data, int[] bounds, int[] results) {
+        int count = checkBounds(bounds, data.length);
+        Objects.checkFromIndexSize(0, 2 * count, results.length);
+        search(data, bounds, count, results);
+    }
+
+    public void longestPalindromes(byte[] data, int[] bounds, int[] results) {
+        int count = checkBounds(bounds, data.length);
+        Objects.checkFromIndexSize(0, 2 * count, results.length);
+        search(data, bounds, count, results);
+    }
+
+    /**
+     * @return the number of strings bounds describes
+     */
+    private static int checkBounds(int[] bounds, int dataLength) {
+        if (bounds.length == 0) {
+            throw new IllegalArgumentException("bounds must hold at least one entry");
+        }
+        for (int i = 1; i < bounds.length; i++) {
+            if (bounds[i] < bounds[i - 1]) {
+                throw new IllegalArgumentException("bounds decrease at " + i + ": " + bounds[i - 1] + " > "
+                        + bounds[i]);
+            }
+        }
+        Objects.checkFromToIndex(bounds[0], bounds[bounds.length - 1], dataLength);
+        return bounds.length - 1;
+    }
+
+    private void search(Object data, int[] bounds, int count, int[] results) {
+        long chars = (long) bounds[count] - bounds[0];
+        int workers = (int) Math.min(pool.getParallelism(), (chars + chunkChars - 1) / chunkChars);
+        if (workers <= 1) {
+            searchRange(data, bounds, 0, count, results);
+            return;
+        }
+
+        // Chunk k covers strings [chunks[k], chunks[k + 1])
+        int[] chunks = new int[(int) Math.min(count, chars / chunkChars + 2) + 1];
+        int chunkCount = 0;
+        int chunkFrom = bounds[0];
+        for (int i = 0; i < count; i++) {
+            if (bounds[i] - chunkFrom >= chunkChars) {
+                chunks[++chunkCount] = i;
+                chunkFrom = bounds[i];
+            }
+        }
+        chunks[++chunkCount] = count;
+
+        AtomicInteger next = new AtomicInteger();
+        int chunkTotal = chunkCount;
+        ForkJoinTask<?>[] tasks = new ForkJoinTask<?>[Math.min(workers, chunkTotal)];
+        for (int w = 0; w < tasks.length; w++) {
+            tasks[w] = pool.submit(() -> {
+                int k;
+                while ((k = next.getAndIncrement()) < chunkTotal) {
+                    searchRange(data, bounds, chunks[k], chunks[k + 1], results);
+                }
+            });
+        }
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+    }
+
+    private void searchRange(Object data, int[] bounds, int from, int to, int[] results) {
+        for (int i = from; i < to; i++) {
+            int start = bounds[i];
+            int length = bounds[i + 1] - start;
+            long range = (data instanceof byte[])
+                    ? finder.find((byte[]) data, start, length)
+                    : finder.find((char[]) data, start, length);
+            results[2 * i] = PalindromeRange.start(range) - start;
+            results[2 * i + 1] = PalindromeRange.length(range);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+import java.util.Random;
+
+public class BudgetTest {
+
+    private static int failures = 0;
+
+    public static void main(String[] args) {
+        System.out.println("Testing BudgetedPalindromeFinder on adversarial inputs");
+        System.out.println();
+        testAdversarialBound();
+        System.out.println("\n\n");
+        testRandomExactness();
+
+        System.out.println();
+        if (failures > 0) {
+            System.out.println("FAILED: " + failures + " check(s) ⚠️");
+            System.exit(1);
+        }
+        System.out.println("All checks passed ✓");
+    }
+
+    /**
+     * Comparisons stay under budget + one Manacher pass (at most two
+     * comparisons per transformed position), while plain priority search
+     * grows past linear.
+     */
+    public static void testAdversarialBound() {
+        BudgetedPalindromeFinder budgeted = new BudgetedPalindromeFinder();
+
+        System.out.println("========================================");
+        System.out.println("BUDGETED vs NOVICE: comparisons per char (budget "
+                + budgeted.getComparisonsPerChar() + "n)");
+        System.out.println("========================================");
+        System.out.println();
+
+        int[] sizes = { 1000, 4000, 16000, 64000 };
+
+        System.out.printf("%-18s %-10s %-15s %-15s %-15s%n",
+                "Family", "Size", "Novice cmp/n", "Budgeted cmp/n", "Bound cmp/n");
+        System.out.println("---------------------------------------------------------------------------");
+
+        for (String family : AdversarialInputs.FAMILIES) {
+            for (int n : sizes) {
+                String test = AdversarialInputs.generate(family, n, 42);
+
+                PalindromeStats novice = PalindromeFinder.priority().findWithStats(test, 0, n);
+                PalindromeStats stats = budgeted.findWithStats(test, 0, n);
+                long expected = PalindromeFinder.manacher().find(test, 0, n);
+
+                long bound = budgeted.budget(n) + 2L * Solution.getTransformedLength(n);
+
+                System.out.printf("%-18s %-10d %-15.2f %-15.2f %-15.2f",
+                        family, n, novice.getComparisonCount() / (double) n,
+                        stats.getComparisonCount() / (double) n, bound / (double) n);
+
+                if (stats.getLength() != PalindromeRange.length(expected)) {
+                    System.out.print(" ⚠️  WRONG LENGTH " + stats.getLength());
+                    failures++;
+                } else if (stats.getComparisonCount() > bound) {
+                    System.out.print(" ⚠️  OVER BOUND");
+                    failures++;
+                } else {
+                    System.out.print(" ✓");
+                }
+                System.out.println();
+            }
+        }
+    }
+
+    /**
+     * Same longest length as Manacher on random run-heavy inputs, across
+     * budgets tight enough to fall back at every point of the search.
+     */
+    public static void testRandomExactness() {
+        System.out.println("========================================");
+        System.out.println("BUDGETED: exactness on random inputs");
+        System.out.println("========================================");
+        System.out.println();
+
+        Random random = new Random(14);
+        int trials = 20000;
+        int wrong = 0;
+        int fallbacks = 0;
+
+        for (int t = 0; t < trials; t++) {
+            int n = random.nextInt(300);
+            StringBuilder sb = new StringBuilder();
+            int alphabet = 1 + random.nextInt(3);
+            while (sb.length() < n) {
+                char c = (char) ('a' + random.nextInt(alphabet));
+                int run = 1 + random.nextInt(1 + random.nextInt(40));
+                for (int k = 0; k < run && sb.length() < n; k++) {
+                    sb.append(c);
+                }
+            }
+            String test = sb.toString();
+
+            BudgetedPalindromeFinder budgeted = new BudgetedPalindromeFinder(1 + random.nextInt(6));
+            long range = budgeted.find(test, 0, n);
+            long expected = PalindromeFinder.manacher().find(test, 0, n);
+            fallbacks += budgeted.getFallbacks();
+
+            int start = PalindromeRange.start(range);
+            int length = PalindromeRange.length(range);
+            String found = test.substring(start, start + length);
+            if (length != PalindromeRange.length(expected)
+                    || !new StringBuilder(found).reverse().toString().equals(found)) {
+                wrong++;
+            }
+        }
+
+        System.out.printf("%-15s %-15s %-15s%n", "Trials", "Fallbacks", "Wrong");
+        System.out.println("---------------------------------------------");
+        System.out.printf("%-15d %-15d %-15d", trials, fallbacks, wrong);
+        if (wrong > 0) {
+            System.out.print(" ⚠️");
+            failures++;
+        } else {
+            System.out.print(" ✓");
+        }
+        System.out.println();
+    }
+}
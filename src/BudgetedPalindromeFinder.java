@@ -0,0 +1,166 @@
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The priority search of {@link Solution} with a hard cap on comparisons,
+ * for callers that cannot afford its quadratic inputs (see WorstCaseTest).
+ *
+ * The search runs with a budget of comparisonsPerChar * length comparisons
+ * and cuts its expansions short where the budget ends. Every center it did
+ * finish has an exact radius; if the budget runs out, those radii seed a
+ * Manacher pass that skips them and computes the rest. Manacher makes at
+ * most about two comparisons per transformed position, so a call never
+ * costs more than the budget plus a linear pass, and the result is still
+ * exact.
+ *
+ * Only a search that gets past half its budget records radii, in 2 *
+ * length + 1 ints of the calling thread's {@link PalindromeWorkspace}; the
+ * centers it checked before that are left to Manacher. Thread-safe.
+ */
+public final class BudgetedPalindromeFinder implements PalindromeFinder {
+
+    public static final String NAME = "NoviceBudgeted";
+
+    /**
+     * Default comparisons allowed per input character before falling back.
+     */
+    public static final int DEFAULT_COMPARISONS_PER_CHAR = 8;
+
+    private final int comparisonsPerChar;
+
+    private final LongAdder fallbacks = new LongAdder();
+
+    public BudgetedPalindromeFinder() {
+        this(DEFAULT_COMPARISONS_PER_CHAR);
+    }
+
+    public BudgetedPalindromeFinder(int comparisonsPerChar) {
+        if (comparisonsPerChar <= 0) {
+            throw new IllegalArgumentException("comparisonsPerChar <= 0: " + comparisonsPerChar);
+        }
+        this.comparisonsPerChar = comparisonsPerChar;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    public int getComparisonsPerChar() {
+        return comparisonsPerChar;
+    }
+
+    /**
+     * Comparisons the priority search may make on an input of length chars.
+     */
+    public long budget(int length) {
+        return (long) comparisonsPerChar * length;
+    }
+
+    /**
+     * Calls that ran out of budget and were finished by Manacher.
+     */
+    public long getFallbacks() {
+        return fallbacks.sum();
+    }
+
+    @Override
+    public long find(CharSequence s, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, s.length());
+        return search(s, offset, length, null, null);
+    }
+
+    @Override
+    public long find(char[] s, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, s.length);
+        return search(s, offset, length, null, null);
+    }
+
+    @Override
+    public long find(byte[] s, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, s.length);
+        return search(s, offset, length, null, null);
+    }
+
+    @Override
+    public PalindromeStats findWithStats(CharSequence s, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, s.length());
+        return stats(s, offset, length);
+    }
+
+    @Override
+    public PalindromeStats findWithStats(char[] s, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, s.length);
+        return stats(s, offset, length);
+    }
+
+    @Override
+    public PalindromeStats findWithStats(byte[] s, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, s.length);
+        return stats(s, offset, length);
+    }
+
+    /**
+     * Reported under the engine that answered: the priority search, or
+     * Manacher after a fallback.
+     */
+    private PalindromeStats stats(Object src, int offset, int length) {
+        long[] counters = new long[PalindromeStats.COUNTERS];
+        String[] answeredBy = new String[1];
+        long range = search(src, offset, length, counters, answeredBy);
+        return new PalindromeStats(answeredBy[0], range, counters);
+    }
+
+    /**
+     * Traced as a {@link PalindromeEvents.Search} event with a
+     * prioritySearch phase and, when the budget runs out, a manacher phase
+     * when enabled.
+     *
+     * @param counters   receives the counters of both phases when the
+     *                   budget runs out, or null
+     * @param answeredBy receives the name of the engine that answered, or
+     *                   null
+     */
+    private long search(Object src, int offset, int length, long[] counters, String[] answeredBy) {
+        PalindromeEvents.Trace trace = PalindromeEvents.trace(NAME, length, 2);
+        if (trace.isOn() && counters == null) {
+            counters = new long[PalindromeStats.COUNTERS];
+        }
+
+        int n = Solution.getTransformedLength(length);
+        PalindromeWorkspace ws = PalindromeWorkspace.current();
+        trace.begin("prioritySearch");
+        long range = Solution.search(src, offset, length, counters, budget(length), 0, Long.MAX_VALUE, ws);
+        trace.end(counters);
+        String engine = PriorityPalindromeFinder.NAME;
+        if (range == Solution.OVER_BUDGET) {
+            engine = ManacherPalindromeFinder.NAME;
+            // Seeded by the search from half its budget on
+            int[] confirmed = ws.ints(n);
+            fallbacks.increment();
+            long[] priority = (counters != null) ? counters.clone() : null;
+            trace.begin("manacher");
+            range = Mancher.search(src, offset, length, confirmed, ws, counters, true);
+            trace.end(counters);
+            if (counters != null) {
+                for (int i = 0; i < PalindromeStats.COUNTERS; i++) {
+                    counters[i] += priority[i];
+                }
+            }
+            trace.finish(range, counters, engine, PalindromeEvents.OVER_BUDGET);
+        } else if (trace.isOn()) {
+            trace.finish(range, counters, engine, PalindromeEvents.priorityTermination(counters));
+        }
+        if (answeredBy != null) {
+            answeredBy[0] = engine;
+        }
+
+        ws.release();
+        return range;
+    }
+
+    @Override
+    public String toString() {
+        return NAME + "[comparisonsPerChar=" + comparisonsPerChar + ", fallbacks=" + getFallbacks() + "]";
+    }
+}
@@ -0,0 +1,435 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Remembers the results of another {@link PalindromeFinder} for inputs seen
+ * before, such as retried or fanned-out payloads.
+ *
+ * An entry is keyed by a 128-bit hash of the content plus its length, and
+ * holds the (start, length) result relative to the input, so nothing of
+ * the input itself is kept and the same content hits at any offset. char
+ * and byte input hash alike, so a Latin-1 byte[] and the equal String share
+ * an entry. The hash is seeded per instance and fast, not cryptographic:
+ * two different inputs share an entry with probability about 2^-128, and
+ * then the second gets the first one's result.
+ *
+ * Entries are spread over lock-striped segments, each an LRU list bounded
+ * by its share of maxBytes. Every entry has the same footprint,
+ * {@link #ENTRY_BYTES}, because no input is retained. Inputs shorter than
+ * minLength bypass the cache: searching them costs less than a lookup.
+ *
+ * findWithStats is served from the cache too; a hit comes back with every
+ * counter zero, since no search ran. Hits, misses, evictions and bypasses
+ * are counted for monitoring. Thread-safe.
+ */
+public final class CachingPalindromeFinder implements PalindromeFinder {
+
+    /**
+     * Default bound on the memory the entries take.
+     */
+    public static final long DEFAULT_MAX_BYTES = 64L << 20;
+
+    /**
+     * Default length below which inputs bypass the cache.
+     */
+    public static final int DEFAULT_MIN_LENGTH = 32;
+
+    /**
+     * Approximate heap footprint of one entry: map node, key and boxed
+     * result.
+     */
+    public static final int ENTRY_BYTES = 96;
+
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class,
+            ByteOrder.LITTLE_ENDIAN);
+
+    private static final long P1 = 0x9E3779B185EBCA87L;
+    private static final long P2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long P3 = 0x165667B19E3779F9L;
+    private static final long P4 = 0xD6E8FEB86659FD93L;
+
+    private final PalindromeFinder finder;
+    private final int minLength;
+    private final long seed = ThreadLocalRandom.current().nextLong();
+
+    private final Segment[] segments;
+    private final int segmentMask;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder bypasses = new LongAdder();
+    private final LongAdder entries = new LongAdder();
+
+    public CachingPalindromeFinder(PalindromeFinder finder) {
+        this(finder, DEFAULT_MAX_BYTES, DEFAULT_MIN_LENGTH);
+    }
+
+    public CachingPalindromeFinder(PalindromeFinder finder, long maxBytes, int minLength) {
+        if (maxBytes < ENTRY_BYTES) {
+            throw new IllegalArgumentException("maxBytes < " + ENTRY_BYTES + ": " + maxBytes);
+        }
+        if (minLength < 0) {
+            throw new IllegalArgumentException("minLength < 0: " + minLength);
+        }
+        this.finder = Objects.requireNonNull(finder, "finder");
+        this.minLength = minLength;
+
+        // About 4 segments per core, fewer if that would leave them tiny
+        long maxEntries = maxBytes / ENTRY_BYTES;
+        int count = Integer.highestOneBit(Math.max(1, 4 * Runtime.getRuntime().availableProcessors() - 1)) << 1;
+        while (count > 1 && maxEntries / count < 64) {
+            count >>= 1;
+        }
+        segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment((int) Math.min(Integer.MAX_VALUE, maxEntries / count));
+        }
+        segmentMask = count - 1;
+    }
+
+    @Override
+    public String getName() {
+        return "Cached" + finder.getName();
+    }
+
+    public PalindromeFinder getFinder() {
+        return finder;
+    }
+
+    public int getMinLength() {
+        return minLength;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * Calls that skipped the cache for being shorter than minLength.
+     */
+    public long getBypasses() {
+        return bypasses.sum();
+    }
+
+    public long getEntryCount() {
+        return entries.sum();
+    }
+
+    public long getEstimatedBytes() {
+        return getEntryCount() * ENTRY_BYTES;
+    }
+
+    /**
+     * Drops every entry; the counters keep counting.
+     */
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                entries.add(-segment.size());
+                segment.clear();
+            }
+        }
+    }
+
+    @Override
+    public long find(CharSequence s, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, s.length());
+        if (length < minLength) {
+            bypasses.increment();
+            return finder.find(s, offset, length);
+        }
+        Key key = key(s, offset, length);
+        long cached = get(key);
+        if (cached >= 0) {
+            return shift(cached, offset);
+        }
+        long range = finder.find(s, offset, length);
+        put(key, range, offset);
+        return range;
+    }
+
+    @Override
+    public long find(char[] s, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, s.length);
+        if (length < minLength) {
+            bypasses.increment();
+            return finder.find(s, offset, length);
+        }
+        Key key = key(s, offset, length);
+        long cached = get(key);
+        if (cached >= 0) {
+            return shift(cached, offset);
+        }
+        long range = finder.find(s, offset, length);
+        put(key, range, offset);
+        return range;
+    }
+
+    @Override
+    public long find(byte[] s, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, s.length);
+        if (length < minLength) {
+            bypasses.increment();
+            return finder.find(s, offset, length);
+        }
+        Key key = key(s, offset, length);
+        long cached = get(key);
+        if (cached >= 0) {
+            return shift(cached, offset);
+        }
+        long range = finder.find(s, offset, length);
+        put(key, range, offset);
+        return range;
+    }
+
+    @Override
+    public PalindromeStats findWithStats(CharSequence s, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, s.length());
+        if (length < minLength) {
+            bypasses.increment();
+            return finder.findWithStats(s, offset, length);
+        }
+        Key key = key(s, offset, length);
+        long cached = get(key);
+        if (cached >= 0) {
+            return hit(shift(cached, offset));
+        }
+        PalindromeStats stats = finder.findWithStats(s, offset, length);
+        put(key, stats.getRange(), offset);
+        return stats;
+    }
+
+    @Override
+    public PalindromeStats findWithStats(char[] s, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, s.length);
+        if (length < minLength) {
+            bypasses.increment();
+            return finder.findWithStats(s, offset, length);
+        }
+        Key key = key(s, offset, length);
+        long cached = get(key);
+        if (cached >= 0) {
+            return hit(shift(cached, offset));
+        }
+        PalindromeStats stats = finder.findWithStats(s, offset, length);
+        put(key, stats.getRange(), offset);
+        return stats;
+    }
+
+    @Override
+    public PalindromeStats findWithStats(byte[] s, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, s.length);
+        if (length < minLength) {
+            bypasses.increment();
+            return finder.findWithStats(s, offset, length);
+        }
+        Key key = key(s, offset, length);
+        long cached = get(key);
+        if (cached >= 0) {
+            return hit(shift(cached, offset));
+        }
+        PalindromeStats stats = finder.findWithStats(s, offset, length);
+        put(key, stats.getRange(), offset);
+        return stats;
+    }
+
+    /**
+     * Stats of a call answered from the cache: no search ran, so every
+     * counter is zero.
+     */
+    private PalindromeStats hit(long range) {
+        return new PalindromeStats(getName(), range, new long[PalindromeStats.COUNTERS]);
+    }
+
+    /**
+     * @return the cached range relative to the input, or -1
+     */
+    private long get(Key key) {
+        Segment segment = segments[(int) key.lo & segmentMask];
+        Long cached;
+        synchronized (segment) {
+            cached = segment.get(key);
+        }
+        if (cached == null) {
+            misses.increment();
+            return -1;
+        }
+        hits.increment();
+        return cached;
+    }
+
+    private void put(Key key, long range, int offset) {
+        Long relative = shift(range, -offset);
+        Segment segment = segments[(int) key.lo & segmentMask];
+        synchronized (segment) {
+            if (segment.put(key, relative) == null) {
+                entries.increment();
+            }
+        }
+    }
+
+    private static long shift(long range, int offset) {
+        return PalindromeRange.of(PalindromeRange.start(range) + offset, PalindromeRange.length(range));
+    }
+
+    private final class Segment extends LinkedHashMap<Key, Long> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int maxEntries;
+
+        Segment(int maxEntries) {
+            super(16, 0.75f, true);
+            this.maxEntries = Math.max(1, maxEntries);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Long> eldest) {
+            if (size() <= maxEntries) {
+                return false;
+            }
+            evictions.increment();
+            entries.decrement();
+            return true;
+        }
+    }
+
+    private static final class Key {
+        final long hi;
+        final long lo;
+        final int length;
+
+        Key(long hi, long lo, int length) {
+            this.hi = hi;
+            this.lo = lo;
+            this.length = length;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key k = (Key) o;
+            return hi == k.hi && lo == k.lo && length == k.length;
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) (lo >>> 32) ^ (int) hi;
+        }
+    }
+
+    // 128-bit content hash: two multiply-rotate lanes over 64-bit words of
+    // four 16-bit code units each (bytes are widened, so Latin-1 bytes and
+    // chars agree), finished with murmur3's fmix64
+
+    private Key key(CharSequence s, int offset, int length) {
+        long a = seed ^ P1;
+        long b = ~seed ^ P2;
+        int i = offset;
+        int end = offset + length;
+        for (; i + 4 <= end; i += 4) {
+            long w = s.charAt(i) | (long) s.charAt(i + 1) << 16 | (long) s.charAt(i + 2) << 32
+                    | (long) s.charAt(i + 3) << 48;
+            a = Long.rotateLeft(a + w * P2, 31) * P1;
+            b = Long.rotateLeft(b ^ w * P3, 27) * P4;
+        }
+        long w = 0;
+        for (int k = 0; i < end; i++, k += 16) {
+            w |= (long) s.charAt(i) << k;
+        }
+        return finish(a, b, w, length);
+    }
+
+    private Key key(char[] s, int offset, int length) {
+        long a = seed ^ P1;
+        long b = ~seed ^ P2;
+        int i = offset;
+        int end = offset + length;
+        for (; i + 4 <= end; i += 4) {
+            long w = s[i] | (long) s[i + 1] << 16 | (long) s[i + 2] << 32 | (long) s[i + 3] << 48;
+            a = Long.rotateLeft(a + w * P2, 31) * P1;
+            b = Long.rotateLeft(b ^ w * P3, 27) * P4;
+        }
+        long w = 0;
+        for (int k = 0; i < end; i++, k += 16) {
+            w |= (long) s[i] << k;
+        }
+        return finish(a, b, w, length);
+    }
+
+    private Key key(byte[] s, int offset, int length) {
+        long a = seed ^ P1;
+        long b = ~seed ^ P2;
+        int i = offset;
+        int end = offset + length;
+        for (; i + 8 <= end; i += 8) {
+            long x = (long) LONGS.get(s, i);
+            long w = widen(x);
+            a = Long.rotateLeft(a + w * P2, 31) * P1;
+            b = Long.rotateLeft(b ^ w * P3, 27) * P4;
+            w = widen(x >>> 32);
+            a = Long.rotateLeft(a + w * P2, 31) * P1;
+            b = Long.rotateLeft(b ^ w * P3, 27) * P4;
+        }
+        if (i + 4 <= end) {
+            long w = s[i] & 0xFF | (s[i + 1] & 0xFFL) << 16 | (s[i + 2] & 0xFFL) << 32 | (s[i + 3] & 0xFFL) << 48;
+            a = Long.rotateLeft(a + w * P2, 31) * P1;
+            b = Long.rotateLeft(b ^ w * P3, 27) * P4;
+            i += 4;
+        }
+        long w = 0;
+        for (int k = 0; i < end; i++, k += 16) {
+            w |= (s[i] & 0xFFL) << k;
+        }
+        return finish(a, b, w, length);
+    }
+
+    /**
+     * Spreads the low four bytes of x into four 16-bit units.
+     */
+    private static long widen(long x) {
+        return x & 0xFFL | (x & 0xFF00L) << 8 | (x & 0xFF0000L) << 16 | (x & 0xFF000000L) << 24;
+    }
+
+    private static Key finish(long a, long b, long tail, int length) {
+        a = Long.rotateLeft(a + tail * P2, 31) * P1;
+        b = Long.rotateLeft(b ^ tail * P3, 27) * P4;
+        a += length;
+        b ^= (long) length << 32;
+        a = fmix(a + b);
+        b = fmix(b ^ a);
+        return new Key(a, b, length);
+    }
+
+    private static long fmix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    @Override
+    public String toString() {
+        return getName() + "[hits=" + getHits() + ", misses=" + getMisses() + ", evictions=" + getEvictions()
+                + ", bypasses=" + getBypasses() + ", entries=" + getEntryCount() + "]";
+    }
+}
@@ -0,0 +1,128 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * Center expansion over the '#'-transformed view of an input, without
+ * materializing the transformed string.
+ *
+ * Transformed index t is the separator '#' when t is even and the original
+ * character at offset + (t - 1) / 2 when t is odd. The two positions compared
+ * around a center always have the same parity, so separators match trivially
+ * and only character pairs are actually read.
+ *
+ * The source is a byte[], char[] or CharSequence. Dispatch happens once per
+ * center, never inside the comparison loop.
+ *
+ * Long matches over a byte[] are compared 8 pairs at a time: one 8-byte
+ * load going right, one going left with its bytes reversed, and the first
+ * differing byte of their XOR is the first mismatch.
+ */
+final class CenterExpansion {
+
+    // Pairs compared one at a time before switching to 8-byte words; most
+    // expansions stop well before this
+    private static final int WORD_THRESHOLD = 8;
+
+    private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class,
+            ByteOrder.LITTLE_ENDIAN);
+
+    private CenterExpansion() {
+    }
+
+    /**
+     * Expands around a transformed center.
+     *
+     * @param src       byte[], char[] or CharSequence holding the original text
+     * @param offset    index of the first original character in src
+     * @param center    transformed center index
+     * @param radius    radius already known to match
+     * @param maxRadius upper bound for the result; must not exceed
+     *                  min(center, n - 1 - center)
+     * @return the largest matching radius, capped at maxRadius
+     */
+    static int expand(Object src, int offset, int center, int radius, int maxRadius) {
+        if (radius >= maxRadius) {
+            return radius;
+        }
+
+        // Next left position is a separator: it matches its mirror for free
+        if (((center - radius) & 1) == 1) {
+            radius++;
+            if (radius >= maxRadius) {
+                return radius;
+            }
+        }
+
+        // Both next positions are characters now; each matched pair also
+        // brings the separator beyond it, so it is worth 2 radius units
+        int left = offset + ((center - radius - 2) >> 1);
+        int right = offset + ((center + radius) >> 1);
+        int maxPairs = (maxRadius - radius + 1) >> 1;
+
+        int pairs;
+        if (src instanceof byte[]) {
+            pairs = matchPairs((byte[]) src, left, right, maxPairs);
+        } else if (src instanceof char[]) {
+            pairs = matchPairs((char[]) src, left, right, maxPairs);
+        } else {
+            pairs = matchPairs((CharSequence) src, left, right, maxPairs);
+        }
+
+        return Math.min(radius + 2 * pairs, maxRadius);
+    }
+
+    /**
+     * Number of transformed comparisons the classic one-position-at-a-time
+     * loop would have made to grow a radius from start to found, where limit
+     * is the loop bound. Every step that matched counts, plus the final
+     * mismatch when the loop stopped before reaching its bound.
+     */
+    static long comparisons(int start, int found, int limit) {
+        return (found - start) + (found < limit ? 1 : 0);
+    }
+
+    private static int matchPairs(byte[] s, int left, int right, int maxPairs) {
+        int k = 0;
+        int scalar = Math.min(maxPairs, WORD_THRESHOLD);
+        while (k < scalar && s[left - k] == s[right + k]) {
+            k++;
+        }
+        if (k < scalar) {
+            return k;
+        }
+
+        // s[right + k ..] forwards against s[.. left - k] backwards; with
+        // little-endian loads both have their first pair in the low byte
+        while (k <= maxPairs - 8) {
+            long forward = (long) LONGS.get(s, right + k);
+            long backward = Long.reverseBytes((long) LONGS.get(s, left - k - 7));
+            long diff = forward ^ backward;
+            if (diff != 0) {
+                return k + (Long.numberOfTrailingZeros(diff) >>> 3);
+            }
+            k += 8;
+        }
+
+        while (k < maxPairs && s[left - k] == s[right + k]) {
+            k++;
+        }
+        return k;
+    }
+
+    private static int matchPairs(char[] s, int left, int right, int maxPairs) {
+        int k = 0;
+        while (k < maxPairs && s[left - k] == s[right + k]) {
+            k++;
+        }
+        return k;
+    }
+
+    private static int matchPairs(CharSequence s, int left, int right, int maxPairs) {
+        int k = 0;
+        while (k < maxPairs && s.charAt(left - k) == s.charAt(right + k)) {
+            k++;
+        }
+        return k;
+    }
+}
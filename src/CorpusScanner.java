@@ -0,0 +1,525 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Longest palindrome of every file under a directory, and the longest k
+ * across all of them.
+ *
+ * The walk and the searches share one work-stealing pool: each directory
+ * is a task that forks its subdirectories and its files, in batches of
+ * {@link #FILES_PER_TASK}, so a huge directory is spread over every worker
+ * as well as a deep tree. Symbolic links are not followed.
+ *
+ * Each file is read through a FileChannel into a byte buffer owned by the
+ * worker, reused from file to file, and searched as Latin-1 by the
+ * configured {@link PalindromeFinder}, whose scratch is the worker's
+ * {@link PalindromeWorkspace}; steady state allocates nothing per byte.
+ * Files of mapThreshold bytes or more would cost a worker about 9 heap
+ * bytes per file byte there, so they go to a {@link ShardedPalindromeFinder}
+ * instead: exactly Manacher's answer, in linear time, from worker processes
+ * whose heaps are capped to one shard each. It runs parallelism workers,
+ * so one such file is searched at a time; their rows are labelled
+ * {@link ShardedPalindromeFinder#NAME}.
+ *
+ * Per-file results can be streamed to a Writer as CSV, in the column style
+ * of output/benchmark_results.csv, or as JSON lines, in completion order.
+ * The top k (longest first, then by path and offset) are kept in a bounded
+ * heap that most files skip without locking.
+ */
+public final class CorpusScanner {
+
+    public enum Format {
+        CSV,
+        JSONL
+    }
+
+    public static final int DEFAULT_TOP_K = 100;
+
+    /**
+     * Default size from which files are sharded rather than read.
+     */
+    public static final long DEFAULT_MAP_THRESHOLD = 64L << 20;
+
+    /**
+     * Files searched per task; enough to amortize forking.
+     */
+    static final int FILES_PER_TASK = 32;
+
+    private static final String CSV_HEADER = "algorithm,file,original_length,palindrome_start,palindrome_length,"
+            + "time_ms,result_palindrome";
+
+    // Characters of the palindrome written per result line
+    private static final int PREVIEW_LENGTH = 100;
+
+    // Read buffers, separate from the workspace the engines use
+    private static final ThreadLocal<PalindromeWorkspace> READ_BUFFERS = ThreadLocal
+            .withInitial(PalindromeWorkspace::new);
+
+    private final PalindromeFinder finder;
+    private final int parallelism;
+    private final int topK;
+    private final long mapThreshold;
+    private final ShardedPalindromeFinder sharded;
+
+    // One sharded search at a time; each already uses every worker
+    private final Semaphore shardedSearches = new Semaphore(1);
+
+    /**
+     * Adaptive engine on one worker per core, top {@link #DEFAULT_TOP_K}.
+     */
+    public CorpusScanner() {
+        this(new PalindromeEngine(), Runtime.getRuntime().availableProcessors(), DEFAULT_TOP_K,
+                DEFAULT_MAP_THRESHOLD);
+    }
+
+    public CorpusScanner(PalindromeFinder finder, int parallelism, int topK, long mapThreshold) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism <= 0: " + parallelism);
+        }
+        if (topK < 0) {
+            throw new IllegalArgumentException("topK < 0: " + topK);
+        }
+        if (mapThreshold <= 0) {
+            throw new IllegalArgumentException("mapThreshold <= 0: " + mapThreshold);
+        }
+        this.finder = Objects.requireNonNull(finder, "finder");
+        this.parallelism = parallelism;
+        this.topK = topK;
+        this.mapThreshold = Math.min(mapThreshold, Integer.MAX_VALUE - 8);
+        this.sharded = new ShardedPalindromeFinder(parallelism, ShardedPalindromeFinder.DEFAULT_SHARD_SIZE,
+                ShardedPalindromeFinder.DEFAULT_OVERLAP);
+    }
+
+    public PalindromeFinder getFinder() {
+        return finder;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public int getTopK() {
+        return topK;
+    }
+
+    public Result scan(Path root) throws IOException {
+        return scan(root, null, Format.CSV);
+    }
+
+    /**
+     * Scans every regular file under root (or root itself, if it is a
+     * file).
+     *
+     * @param out    receives one line per file searched, after a header for
+     *               CSV; null for none. Flushed, not closed.
+     * @param format of the lines written to out
+     */
+    public Result scan(Path root, Writer out, Format format) throws IOException {
+        Objects.requireNonNull(format, "format");
+        Scan scan = new Scan(out == null ? null : new BufferedWriter(out, 1 << 16), format);
+        if (scan.out != null && format == Format.CSV) {
+            scan.out.write(CSV_HEADER);
+            scan.out.write('\n');
+        }
+
+        long start = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(root, BasicFileAttributes.class,
+                    LinkOption.NOFOLLOW_LINKS);
+            if (attributes.isDirectory()) {
+                pool.invoke(new DirectoryTask(scan, root));
+            } else {
+                pool.invoke(new FilesTask(scan, List.of(root)));
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        if (scan.out != null) {
+            synchronized (scan) {
+                if (scan.writeError != null) {
+                    throw scan.writeError;
+                }
+                scan.out.flush();
+            }
+        }
+        return new Result(scan.files.sum(), scan.bytes.sum(), scan.errors.sum(), System.nanoTime() - start,
+                scan.top());
+    }
+
+    /**
+     * The longest palindrome of one file, in bytes (one byte is one
+     * Latin-1 character).
+     */
+    public static final class Hit {
+        private final Path file;
+        private final long start;
+        private final long length;
+
+        Hit(Path file, long start, long length) {
+            this.file = file;
+            this.start = start;
+            this.length = length;
+        }
+
+        public Path getFile() {
+            return file;
+        }
+
+        public long getStart() {
+            return start;
+        }
+
+        public long getLength() {
+            return length;
+        }
+
+        @Override
+        public String toString() {
+            return file + " [" + start + ", " + (start + length) + ") length=" + length;
+        }
+    }
+
+    // Longest first, then by path and start, so the top k is deterministic
+    private static final Comparator<Hit> ORDER = Comparator.comparingLong(Hit::getLength).reversed()
+            .thenComparing(Hit::getFile).thenComparingLong(Hit::getStart);
+
+    public static final class Result {
+        private final long files;
+        private final long bytes;
+        private final long errors;
+        private final long elapsedNanos;
+        private final List<Hit> top;
+
+        Result(long files, long bytes, long errors, long elapsedNanos, List<Hit> top) {
+            this.files = files;
+            this.bytes = bytes;
+            this.errors = errors;
+            this.elapsedNanos = elapsedNanos;
+            this.top = top;
+        }
+
+        public long getFiles() {
+            return files;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        /**
+         * Files and directories that could not be read; they are skipped.
+         */
+        public long getErrors() {
+            return errors;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /**
+         * The longest hits, longest first.
+         */
+        public List<Hit> getTop() {
+            return top;
+        }
+
+        public double getMegabytesPerSecond() {
+            return bytes / 1e6 / Math.max(1e-9, elapsedNanos / 1e9);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d files, %d bytes, %d errors in %.1f ms (%.1f MB/s)", files, bytes, errors,
+                    elapsedNanos / 1e6, getMegabytesPerSecond());
+        }
+    }
+
+    /**
+     * State shared by the tasks of one scan.
+     */
+    private final class Scan {
+        final Writer out;
+        final Format format;
+        IOException writeError;
+
+        final LongAdder files = new LongAdder();
+        final LongAdder bytes = new LongAdder();
+        final LongAdder errors = new LongAdder();
+
+        // Min-heap of the best hits; floor is the length a new hit must
+        // beat once it is full, read without the lock
+        final PriorityQueue<Hit> heap = new PriorityQueue<>(ORDER.reversed());
+        volatile long floor = -1;
+
+        Scan(Writer out, Format format) {
+            this.out = out;
+            this.format = format;
+        }
+
+        void offer(Hit hit) {
+            if (topK == 0 || hit.length < floor) {
+                return;
+            }
+            synchronized (heap) {
+                heap.add(hit);
+                if (heap.size() > topK) {
+                    heap.poll();
+                }
+                if (heap.size() == topK) {
+                    floor = heap.peek().length;
+                }
+            }
+        }
+
+        List<Hit> top() {
+            List<Hit> top;
+            synchronized (heap) {
+                top = new ArrayList<>(heap);
+            }
+            top.sort(ORDER);
+            return top;
+        }
+
+        void write(String engine, Path file, long size, long start, long length, long nanos, String preview) {
+            if (out == null) {
+                return;
+            }
+            String line;
+            if (format == Format.CSV) {
+                line = String.format("\"%s\",\"%s\",%d,%d,%d,%.3f,\"%s\"%n", engine,
+                        file.toString().replace("\"", "\"\""), size, start, length, nanos / 1e6,
+                        preview.replace("\"", "\"\""));
+            } else {
+                line = String.format("{\"algorithm\":\"%s\",\"file\":\"%s\",\"original_length\":%d,"
+                        + "\"palindrome_start\":%d,\"palindrome_length\":%d,\"time_ms\":%.3f,"
+                        + "\"result_palindrome\":\"%s\"}%n", json(engine), json(file.toString()), size,
+                        start, length, nanos / 1e6, json(preview));
+            }
+            synchronized (this) {
+                if (writeError != null) {
+                    return;
+                }
+                try {
+                    out.write(line);
+                } catch (IOException e) {
+                    writeError = e;
+                }
+            }
+        }
+    }
+
+    private static String json(String s) {
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20) {
+                sb.append(String.format("\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    private final class DirectoryTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Scan scan;
+        private final Path dir;
+
+        DirectoryTask(Scan scan, Path dir) {
+            this.scan = scan;
+            this.dir = dir;
+        }
+
+        @Override
+        protected void compute() {
+            List<RecursiveAction> tasks = new ArrayList<>();
+            List<Path> files = new ArrayList<>(FILES_PER_TASK);
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+                for (Path entry : entries) {
+                    BasicFileAttributes attributes;
+                    try {
+                        attributes = Files.readAttributes(entry, BasicFileAttributes.class,
+                                LinkOption.NOFOLLOW_LINKS);
+                    } catch (IOException e) {
+                        scan.errors.increment();
+                        continue;
+                    }
+                    if (attributes.isDirectory()) {
+                        tasks.add(new DirectoryTask(scan, entry));
+                    } else if (attributes.isRegularFile()) {
+                        files.add(entry);
+                        if (files.size() == FILES_PER_TASK) {
+                            tasks.add(new FilesTask(scan, files));
+                            files = new ArrayList<>(FILES_PER_TASK);
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                scan.errors.increment();
+            }
+            if (!files.isEmpty()) {
+                tasks.add(new FilesTask(scan, files));
+            }
+            invokeAll(tasks);
+        }
+    }
+
+    private final class FilesTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Scan scan;
+        private final List<Path> files;
+
+        FilesTask(Scan scan, List<Path> files) {
+            this.scan = scan;
+            this.files = files;
+        }
+
+        @Override
+        protected void compute() {
+            for (Path file : files) {
+                try {
+                    search(scan, file);
+                } catch (IOException e) {
+                    scan.errors.increment();
+                }
+            }
+        }
+    }
+
+    private void search(Scan scan, Path file) throws IOException {
+        long begin = System.nanoTime();
+        String engine = finder.getName();
+        long size;
+        long start;
+        long length;
+        String preview;
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            size = channel.size();
+            if (size >= mapThreshold) {
+                ShardedPalindromeFinder.Result result = searchSharded(file);
+                engine = ShardedPalindromeFinder.NAME;
+                start = result.getStart();
+                length = result.getLength();
+                ByteBuffer head = ByteBuffer.allocate((int) Math.min(length, PREVIEW_LENGTH));
+                while (head.hasRemaining() && channel.read(head, start + head.position()) >= 0) {
+                    // Fill the preview
+                }
+                preview = new String(head.array(), 0, head.position(), StandardCharsets.ISO_8859_1);
+            } else {
+                PalindromeWorkspace buffers = READ_BUFFERS.get();
+                byte[] data = buffers.bytes((int) size);
+                ByteBuffer buffer = ByteBuffer.wrap(data, 0, (int) size);
+                while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                    // Read the whole file; it may shrink while being read
+                }
+                int read = buffer.position();
+                long range = finder.find(data, 0, read);
+                size = read;
+                start = PalindromeRange.start(range);
+                length = PalindromeRange.length(range);
+                preview = new String(data, (int) start, (int) Math.min(length, PREVIEW_LENGTH),
+                        StandardCharsets.ISO_8859_1);
+                buffers.release();
+            }
+        }
+
+        long nanos = System.nanoTime() - begin;
+        scan.files.increment();
+        scan.bytes.add(size);
+        scan.offer(new Hit(file, start, length));
+        scan.write(engine, file, size, start, length, nanos, preview);
+    }
+
+    private ShardedPalindromeFinder.Result searchSharded(Path file) throws IOException {
+        try {
+            shardedSearches.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for a sharded search");
+        }
+        try {
+            return sharded.find(file);
+        } finally {
+            shardedSearches.release();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.out.println("Usage: java CorpusScanner <root> [--top 10] [--threads N] [--out results.csv|.jsonl]");
+            return;
+        }
+        Path root = Paths.get(args[0]);
+        int top = 10;
+        int threads = Runtime.getRuntime().availableProcessors();
+        Path outPath = null;
+        for (int i = 1; i < args.length; i++) {
+            String option = args[i];
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + option);
+            }
+            String value = args[++i];
+            switch (option) {
+                case "--top":
+                    top = Integer.parseInt(value);
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(value);
+                    break;
+                case "--out":
+                    outPath = Paths.get(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + option);
+            }
+        }
+
+        CorpusScanner scanner = new CorpusScanner(new PalindromeEngine(), threads, top, DEFAULT_MAP_THRESHOLD);
+        Result result;
+        if (outPath == null) {
+            result = scanner.scan(root);
+        } else {
+            Format format = outPath.toString().endsWith(".jsonl") ? Format.JSONL : Format.CSV;
+            try (Writer out = Files.newBufferedWriter(outPath, StandardCharsets.UTF_8)) {
+                result = scanner.scan(root, out, format);
+            }
+        }
+
+        System.out.println(result);
+        for (Hit hit : result.getTop()) {
+            System.out.println("  " + hit);
+        }
+    }
+}
@@ -0,0 +1,218 @@
+import java.util.Random;
+
+public class IncrementalTest {
+
+    private static int failures = 0;
+
+    public static void main(String[] args) {
+        System.out.println("Testing SlidingWindowPalindromeFinder and PalindromeDocument against brute force");
+        System.out.println();
+        testRandomSlides();
+        System.out.println("\n\n");
+        testRandomEdits();
+
+        System.out.println();
+        if (failures > 0) {
+            System.out.println("FAILED: " + failures + " check(s) ⚠️");
+            System.exit(1);
+        }
+        System.out.println("All checks passed ✓");
+    }
+
+    /**
+     * Random appends and explicit evictions on small alphabets, so that
+     * palindromic suffixes form long progressions and closed palindromes
+     * are cut by the window's edge all the time. After every step the
+     * length must be the brute-force longest in the window, and the
+     * reported palindrome must be inside the window.
+     */
+    public static void testRandomSlides() {
+        System.out.println("========================================");
+        System.out.println("SLIDING WINDOW: random slides");
+        System.out.println("========================================");
+        System.out.println();
+
+        Random random = new Random(15);
+        int trials = 2000;
+        long steps = 0;
+        int wrong = 0;
+
+        for (int t = 0; t < trials; t++) {
+            int windowSize = 1 + random.nextInt(t % 2 == 0 ? 8 : 64);
+            int alphabet = 1 + random.nextInt(3);
+            int evictPercent = random.nextInt(4) * 10;
+            SlidingWindowPalindromeFinder window = new SlidingWindowPalindromeFinder(windowSize);
+            if (t % 10 == 0) {
+                // Reuse after a reset must behave like a fresh instance
+                for (int i = random.nextInt(100); i > 0; i--) {
+                    window.append((char) ('a' + random.nextInt(alphabet)));
+                }
+                window.reset();
+            }
+
+            StringBuilder stream = new StringBuilder();
+            int left = 0;
+            boolean ok = true;
+            for (int step = 0, ops = random.nextInt(400); step < ops && ok; step++) {
+                if (stream.length() > left && random.nextInt(100) < evictPercent) {
+                    window.evict();
+                    left++;
+                } else {
+                    char c = (char) ('a' + random.nextInt(alphabet));
+                    window.append(c);
+                    stream.append(c);
+                    left = Math.max(left, stream.length() - windowSize);
+                }
+                steps++;
+
+                String contents = stream.substring(left);
+                long expected = bruteForce(contents);
+                int length = window.currentLongestLength();
+                long start = window.currentLongestStart();
+                String longest = window.currentLongest();
+                ok = window.size() == contents.length()
+                        && window.position() == stream.length()
+                        && length == PalindromeRange.length(expected)
+                        && start >= left && start + length <= stream.length()
+                        && longest.equals(stream.substring((int) start, (int) start + length))
+                        && isPalindrome(longest);
+            }
+            if (!ok) {
+                wrong++;
+            }
+        }
+
+        System.out.printf("%-15s %-15s %-15s%n", "Trials", "Steps", "Wrong");
+        System.out.println("---------------------------------------------");
+        System.out.printf("%-15d %-15d %-15d", trials, steps, wrong);
+        report(wrong);
+    }
+
+    /**
+     * Random inserts, deletes and replaces on small alphabets, with runs
+     * and palindromic inserts so that edits land inside long palindromes.
+     * After every edit the text must match a plain StringBuilder and the
+     * longest palindrome must be the brute-force leftmost longest.
+     */
+    public static void testRandomEdits() {
+        System.out.println("========================================");
+        System.out.println("DOCUMENT: random edits");
+        System.out.println("========================================");
+        System.out.println();
+
+        Random random = new Random(16);
+        int trials = 2000;
+        long edits = 0;
+        int wrong = 0;
+
+        for (int t = 0; t < trials; t++) {
+            int alphabet = 1 + random.nextInt(3);
+            StringBuilder model = new StringBuilder(randomText(random, random.nextInt(t % 2 == 0 ? 10 : 80), alphabet));
+            PalindromeDocument doc = new PalindromeDocument(model);
+
+            boolean ok = check(doc, model);
+            for (int edit = 0, ops = random.nextInt(60); edit < ops && ok; edit++) {
+                int length = model.length();
+                int position = random.nextInt(length + 1);
+                String text = randomText(random, random.nextInt(6), alphabet);
+                switch (random.nextInt(3)) {
+                case 0:
+                    doc.insert(position, text);
+                    model.insert(position, text);
+                    break;
+                case 1:
+                    int deleted = random.nextInt(Math.min(length - position, 8) + 1);
+                    doc.delete(position, deleted);
+                    model.delete(position, position + deleted);
+                    break;
+                default:
+                    int replaced = random.nextInt(Math.min(length - position, 8) + 1);
+                    doc.replace(position, replaced, text);
+                    model.replace(position, position + replaced, text);
+                    break;
+                }
+                edits++;
+                ok = check(doc, model);
+            }
+            if (!ok) {
+                wrong++;
+            }
+        }
+
+        System.out.printf("%-15s %-15s %-15s%n", "Trials", "Edits", "Wrong");
+        System.out.println("---------------------------------------------");
+        System.out.printf("%-15d %-15d %-15d", trials, edits, wrong);
+        report(wrong);
+    }
+
+    private static boolean check(PalindromeDocument doc, StringBuilder model) {
+        String text = model.toString();
+        long expected = bruteForce(text);
+        return doc.length() == text.length()
+                && doc.toString().equals(text)
+                && doc.longest() == expected
+                && doc.longestPalindrome().equals(
+                        text.substring(PalindromeRange.start(expected), PalindromeRange.end(expected)));
+    }
+
+    /**
+     * Random characters, half the time made of runs or mirrored onto
+     * themselves.
+     */
+    private static String randomText(Random random, int length, int alphabet) {
+        StringBuilder sb = new StringBuilder();
+        while (sb.length() < length) {
+            char c = (char) ('a' + random.nextInt(alphabet));
+            int run = random.nextBoolean() ? 1 : 1 + random.nextInt(6);
+            for (int i = 0; i < run && sb.length() < length; i++) {
+                sb.append(c);
+            }
+        }
+        if (random.nextInt(4) == 0) {
+            sb.append(new StringBuilder(sb).reverse());
+            sb.setLength(length);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Every center expanded pair by pair; the leftmost of the longest.
+     */
+    private static long bruteForce(String s) {
+        int bestStart = 0;
+        int bestLength = 0;
+        for (int center = 0; center < 2 * s.length() - 1; center++) {
+            int left = center / 2;
+            int right = left + (center & 1);
+            while (left >= 0 && right < s.length() && s.charAt(left) == s.charAt(right)) {
+                left--;
+                right++;
+            }
+            int length = right - left - 1;
+            if (length > bestLength || (length == bestLength && left + 1 < bestStart)) {
+                bestStart = left + 1;
+                bestLength = length;
+            }
+        }
+        return PalindromeRange.of(bestStart, bestLength);
+    }
+
+    private static boolean isPalindrome(String s) {
+        for (int i = 0, j = s.length() - 1; i < j; i++, j--) {
+            if (s.charAt(i) != s.charAt(j)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void report(int wrong) {
+        if (wrong > 0) {
+            System.out.print(" ⚠️");
+            failures++;
+        } else {
+            System.out.print(" ✓");
+        }
+        System.out.println();
+    }
+}
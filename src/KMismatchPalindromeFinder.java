@@ -0,0 +1,320 @@
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Longest substring that is a palindrome up to k mismatches: at most k of
+ * its mirrored character pairs differ. With k = 0 the result is exactly
+ * {@link Mancher}'s.
+ *
+ * Centers are those of the '#'-transformed string, taken as in
+ * {@link Solution}: in descending bestCase order from the middle outwards,
+ * stopping once bestCase cannot beat the best found. Expanding a center
+ * one pair at a time while skipping mismatches is O(n) per center on
+ * repetitive text. Here it takes at most k + 1 longest-common-extension
+ * jumps instead: the number of pairs that match from (left, right)
+ * outwards, that is the common prefix of the text read leftwards from left
+ * and rightwards from right. Each jump ends on a mismatch, which uses one
+ * of the k, or at the text's edge.
+ *
+ * An extension compares up to 8 pairs directly, since most stop there. A
+ * longer one is found by galloping and then binary search over prefix
+ * hashes of the text and of its reverse (mod 2^61 - 1, with a random base
+ * per call), in O(log extension). The total is O(n (k + 1) log n) in the
+ * worst case. Equal hashes are taken as equal strings, so a result is wrong
+ * with probability about n / 2^61 per comparison.
+ *
+ * Stateless and thread-safe; the hashes go to the calling thread's
+ * {@link PalindromeWorkspace}, 24 bytes per character.
+ */
+public final class KMismatchPalindromeFinder implements PalindromeFinder {
+
+    public static final String NAME = "KMismatch";
+
+    private static final long MOD = (1L << 61) - 1;
+
+    // Pairs compared directly before an extension turns to the hashes
+    private static final int DIRECT_PAIRS = 8;
+
+    private final int k;
+    private final String name;
+
+    public KMismatchPalindromeFinder(int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException("k < 0: " + k);
+        }
+        this.k = k;
+        this.name = NAME + k;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    public int getK() {
+        return k;
+    }
+
+    @Override
+    public long find(CharSequence s, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, s.length());
+        return search(s, offset, length, null);
+    }
+
+    @Override
+    public long find(char[] s, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, s.length);
+        return search(s, offset, length, null);
+    }
+
+    @Override
+    public long find(byte[] s, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, s.length);
+        return search(s, offset, length, null);
+    }
+
+    @Override
+    public PalindromeStats findWithStats(CharSequence s, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, s.length());
+        return stats(s, offset, length);
+    }
+
+    @Override
+    public PalindromeStats findWithStats(char[] s, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, s.length);
+        return stats(s, offset, length);
+    }
+
+    @Override
+    public PalindromeStats findWithStats(byte[] s, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, s.length);
+        return stats(s, offset, length);
+    }
+
+    private PalindromeStats stats(Object src, int offset, int length) {
+        long[] counters = new long[PalindromeStats.COUNTERS];
+        long range = search(src, offset, length, counters);
+        return new PalindromeStats(name, range, counters);
+    }
+
+    /**
+     * In the counters, position checks are centers expanded, expansion
+     * attempts are extension jumps, and comparisons count both character
+     * pairs and hash comparisons. Traced as a
+     * {@link PalindromeEvents.Search} event with a hashes and a centers
+     * phase when enabled.
+     */
+    private long search(Object src, int offset, int length, long[] counters) {
+        PalindromeEvents.Trace trace = PalindromeEvents.trace(name, length, 2);
+        if (trace.isOn() && counters == null) {
+            counters = new long[PalindromeStats.COUNTERS];
+        }
+        if (counters != null) {
+            Arrays.fill(counters, 0L);
+        }
+        long range = (length <= 1) ? PalindromeRange.of(offset, length)
+                : search(src, offset, length, counters, trace);
+        if (trace.isOn()) {
+            trace.finish(range, counters, name, PalindromeEvents.priorityTermination(counters));
+        }
+        return range;
+    }
+
+    private long search(Object src, int offset, int length, long[] counters, PalindromeEvents.Trace trace) {
+        PalindromeWorkspace ws = PalindromeWorkspace.current();
+        trace.begin("hashes");
+        Text text = new Text(src, offset, length, ws.longs(3 * (length + 1)), counters);
+        trace.end(null);
+        trace.begin("centers");
+
+        int n = 2 * length + 1;
+        int mid = n / 2;
+        int bestRadius = 0;
+        int bestCenter = 0;
+
+        // Centers mid - d and mid + d share bestCase mid - d; the left one
+        // goes first so that ties keep the leftmost, as Mancher does
+        for (int d = 0; d <= mid; d++) {
+            int bound = mid - d;
+            if (bound < bestRadius) {
+                if (counters != null) {
+                    counters[PalindromeStats.EARLY_TERMINATIONS]++;
+                }
+                break;
+            }
+            for (int side = 0; side < (d == 0 ? 1 : 2); side++) {
+                int center = (side == 0) ? mid - d : mid + d;
+                if (counters != null) {
+                    counters[PalindromeStats.OUTER_LOOPS]++;
+                }
+                // At bound == bestRadius only a center further left can win
+                if (bound == bestRadius && center > bestCenter) {
+                    continue;
+                }
+                int radius = text.radius(center, k);
+                if (radius > bestRadius || (radius == bestRadius && center < bestCenter)) {
+                    bestRadius = radius;
+                    bestCenter = center;
+                }
+            }
+        }
+
+        trace.end(counters);
+        ws.release();
+        return PalindromeRange.of(offset + (bestCenter - bestRadius) / 2, bestRadius);
+    }
+
+    /**
+     * The input with its prefix hashes, forwards and reversed.
+     */
+    private static final class Text {
+        final Object src;
+        final int offset;
+        final int length;
+        final long[] counters;
+
+        // One buffer: forward prefix hashes at [0, length], reversed at
+        // [length + 1, 2 * length + 1], powers of the base after them
+        final long[] hashes;
+        final int reversed;
+        final int powers;
+
+        Text(Object src, int offset, int length, long[] hashes, long[] counters) {
+            this.src = src;
+            this.offset = offset;
+            this.length = length;
+            this.hashes = hashes;
+            this.counters = counters;
+            this.reversed = length + 1;
+            this.powers = 2 * (length + 1);
+
+            long base = ThreadLocalRandom.current().nextLong(1L << 20, MOD - 1);
+            hashes[0] = 0;
+            hashes[reversed] = 0;
+            hashes[powers] = 1;
+            for (int i = 0; i < length; i++) {
+                hashes[i + 1] = add(multiply(hashes[i], base), at(i) + 1);
+                hashes[reversed + i + 1] = add(multiply(hashes[reversed + i], base), at(length - 1 - i) + 1);
+                hashes[powers + i + 1] = multiply(hashes[powers + i], base);
+            }
+        }
+
+        int at(int i) {
+            if (src instanceof byte[]) {
+                return ((byte[]) src)[offset + i] & 0xFF;
+            } else if (src instanceof char[]) {
+                return ((char[]) src)[offset + i];
+            }
+            return ((CharSequence) src).charAt(offset + i);
+        }
+
+        /**
+         * Radius of the transformed center with up to k mismatched pairs,
+         * in characters.
+         */
+        int radius(int center, int k) {
+            // Odd centers are characters, paired around themselves; even
+            // ones are separators between left and right
+            int left = (center >> 1) - 1;
+            int right = (center + 1) >> 1;
+            int core = center & 1;
+            int maxPairs = Math.min(left + 1, length - right);
+            if (counters != null) {
+                counters[PalindromeStats.POSITION_CHECKS]++;
+            }
+
+            int pairs = 0;
+            for (int jump = 0; jump <= k && pairs < maxPairs; jump++) {
+                pairs += extension(left - pairs, right + pairs, maxPairs - pairs);
+                // Either the edge, or a mismatch that uses one of the k
+                if (pairs < maxPairs && jump < k) {
+                    pairs++;
+                }
+            }
+            return core + 2 * pairs;
+        }
+
+        /**
+         * Number of pairs matching outwards from (left, right), at most max.
+         */
+        private int extension(int left, int right, int max) {
+            if (counters != null) {
+                counters[PalindromeStats.EXPANSION_ATTEMPTS]++;
+            }
+            int t = 0;
+            int direct = Math.min(max, DIRECT_PAIRS);
+            while (t < direct && at(left - t) == at(right + t)) {
+                t++;
+            }
+            if (counters != null) {
+                counters[PalindromeStats.COMPARISONS] += t + (t < direct ? 1 : 0);
+            }
+            if (t < direct || t == max) {
+                return t;
+            }
+
+            // Gallop to a length that fails, then binary search below it
+            int matched = t;
+            int step = DIRECT_PAIRS;
+            int failed = max + 1;
+            while (matched < max) {
+                int next = (int) Math.min((long) matched + step, max);
+                if (!matches(left, right, next)) {
+                    failed = next;
+                    break;
+                }
+                matched = next;
+                step <<= 1;
+            }
+            while (failed - matched > 1) {
+                int probe = (matched + failed) >>> 1;
+                if (matches(left, right, probe)) {
+                    matched = probe;
+                } else {
+                    failed = probe;
+                }
+            }
+            return matched;
+        }
+
+        /**
+         * Whether the count characters read leftwards from left equal the
+         * count read rightwards from right.
+         */
+        private boolean matches(int left, int right, int count) {
+            if (counters != null) {
+                counters[PalindromeStats.COMPARISONS]++;
+            }
+            // Leftwards from left is rightwards from length - 1 - left in
+            // the reversed text
+            return hash(0, right, count) == hash(reversed, length - 1 - left, count);
+        }
+
+        private long hash(int prefixes, int from, int count) {
+            return add(hashes[prefixes + from + count],
+                    MOD - multiply(hashes[prefixes + from], hashes[powers + count]));
+        }
+    }
+
+    private static long add(long a, long b) {
+        long sum = a + b;
+        return (sum >= MOD) ? sum - MOD : sum;
+    }
+
+    /**
+     * a * b mod 2^61 - 1, for a and b below the modulus.
+     */
+    private static long multiply(long a, long b) {
+        long high = Math.multiplyHigh(a, b);
+        long low = a * b;
+        long sum = (low & MOD) + ((high << 3) | (low >>> 61));
+        sum = (sum & MOD) + (sum >>> 61);
+        return (sum >= MOD) ? sum - MOD : sum;
+    }
+
+    @Override
+    public String toString() {
+        return getName();
+    }
+}
@@ -0,0 +1,161 @@
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+public class KMismatchTest {
+
+    private static int failures = 0;
+
+    public static void main(String[] args) {
+        System.out.println("Testing KMismatchPalindromeFinder");
+        System.out.println();
+        testRandomExactness();
+        System.out.println("\n\n");
+        testRepetitiveInputs();
+
+        System.out.println();
+        if (failures > 0) {
+            System.out.println("FAILED: " + failures + " check(s) ⚠️");
+            System.exit(1);
+        }
+        System.out.println("All checks passed ✓");
+    }
+
+    /**
+     * Same range as a brute-force search over every center, start included,
+     * on random small-alphabet inputs given as String, char[] and byte[] at
+     * an offset; with k = 0, also the same as Manacher.
+     */
+    public static void testRandomExactness() {
+        System.out.println("========================================");
+        System.out.println("K-MISMATCH: exactness on random inputs");
+        System.out.println("========================================");
+        System.out.println();
+
+        Random random = new Random(24);
+        int trials = 20000;
+        int wrong = 0;
+
+        for (int t = 0; t < trials; t++) {
+            int n = random.nextInt(200);
+            int alphabet = 1 + random.nextInt(4);
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < n; i++) {
+                sb.append((char) ('a' + random.nextInt(alphabet)));
+            }
+            String test = sb.toString();
+            int k = random.nextInt(5);
+            int offset = random.nextInt(3);
+            String padded = "xyz".substring(0, offset) + test;
+
+            KMismatchPalindromeFinder finder = new KMismatchPalindromeFinder(k);
+            long expected = bruteForce(test, k, null);
+            expected = PalindromeRange.of(offset + PalindromeRange.start(expected), PalindromeRange.length(expected));
+            if (finder.find(padded, offset, n) != expected
+                    || finder.find(padded.toCharArray(), offset, n) != expected
+                    || finder.find(padded.getBytes(StandardCharsets.ISO_8859_1), offset, n) != expected
+                    || (k == 0 && PalindromeFinder.manacher().find(padded, offset, n) != expected)) {
+                wrong++;
+            }
+        }
+
+        System.out.printf("%-15s %-15s%n", "Trials", "Wrong");
+        System.out.println("------------------------------");
+        System.out.printf("%-15d %-15d", trials, wrong);
+        if (wrong > 0) {
+            System.out.print(" ⚠️");
+            failures++;
+        } else {
+            System.out.print(" ✓");
+        }
+        System.out.println();
+    }
+
+    /**
+     * On repetitive inputs, expanding pair by pair grows quadratically while
+     * the LCE jumps stay within (k + 1) * 4 * log2(n) comparisons per
+     * character.
+     */
+    public static void testRepetitiveInputs() {
+        System.out.println("========================================");
+        System.out.println("K-MISMATCH vs PAIR-BY-PAIR: repetitive inputs");
+        System.out.println("========================================");
+        System.out.println();
+
+        String[] families = { "threeBlocks", "random2" };
+        int[] sizes = { 1000, 10000, 100000 };
+        int k = 2;
+
+        System.out.printf("%-14s %-10s %-18s %-18s %-10s%n",
+                "Family", "Size", "Pair-by-pair cmp", "LCE comparisons", "Length");
+        System.out.println("-----------------------------------------------------------------------");
+
+        for (String family : families) {
+            for (int n : sizes) {
+                String test = PerfBenchmark.generate(family, n, 42);
+                PalindromeStats stats = new KMismatchPalindromeFinder(k).findWithStats(test, 0, n);
+
+                // Pair by pair is too slow to finish at the largest size
+                String naive = "-";
+                long expected = stats.getRange();
+                if (n <= 10000) {
+                    long[] comparisons = new long[1];
+                    expected = bruteForce(test, k, comparisons);
+                    naive = Long.toString(comparisons[0]);
+                }
+
+                System.out.printf("%-14s %-10d %-18s %-18d %-10d", family, n, naive, stats.getComparisonCount(),
+                        stats.getLength());
+
+                double limit = (k + 1) * 4 * (Math.log(n) / Math.log(2)) * n;
+                if (stats.getRange() != expected) {
+                    System.out.print(" ⚠️  WRONG RESULT");
+                    failures++;
+                } else if (stats.getComparisonCount() > limit) {
+                    System.out.print(" ⚠️  ABOVE (k + 1) * 4 * log2(n) PER CHARACTER");
+                    failures++;
+                } else {
+                    System.out.print(" ✓");
+                }
+                System.out.println();
+            }
+        }
+    }
+
+    /**
+     * Every center expanded pair by pair, skipping up to k mismatches, with
+     * the same bestCase pruning; the leftmost of the longest.
+     */
+    private static long bruteForce(String s, int k, long[] comparisons) {
+        int length = s.length();
+        int n = 2 * length + 1;
+        int bestRadius = 0;
+        int bestCenter = 0;
+        for (int center = 0; center < n; center++) {
+            if (Math.min(center, n - 1 - center) <= bestRadius) {
+                continue;
+            }
+            int left = (center >> 1) - 1;
+            int right = (center + 1) >> 1;
+            int pairs = 0;
+            int mismatches = 0;
+            while (left - pairs >= 0 && right + pairs < length) {
+                if (comparisons != null) {
+                    comparisons[0]++;
+                }
+                if (s.charAt(left - pairs) != s.charAt(right + pairs)) {
+                    if (mismatches == k) {
+                        break;
+                    }
+                    mismatches++;
+                }
+                pairs++;
+            }
+            int radius = (center & 1) + 2 * pairs;
+            if (radius > bestRadius) {
+                bestRadius = radius;
+                bestCenter = center;
+            }
+        }
+        return PalindromeRange.of((bestCenter - bestRadius) / 2, bestRadius);
+    }
+}
@@ -0,0 +1,61 @@
+/**
+ * Narrowing of text to one byte per character, for engines that read every
+ * character anyway.
+ *
+ * Comparing bytes halves the memory traffic of comparing chars, and a byte[]
+ * is read with plain array loads instead of a charAt call per character.
+ * String's own Latin-1 storage is not accessible, so the bytes are a copy:
+ * only worth it for full scans such as Manacher, not for a priority search
+ * that may stop after reading a fraction of the input.
+ */
+final class Latin1 {
+
+    /**
+     * Shorter inputs are searched in place; the copy would not pay off.
+     */
+    static final int MIN_LENGTH = 64;
+
+    private Latin1() {
+    }
+
+    /**
+     * s[offset, offset + length) as one byte per character, in the
+     * workspace's byte buffer.
+     *
+     * @return the buffer, or null if a character is above 0xFF
+     */
+    static byte[] encode(CharSequence s, int offset, int length, PalindromeWorkspace ws) {
+        byte[] dst = ws.bytes(length);
+        return encode(s, offset, length, dst) ? dst : null;
+    }
+
+    /**
+     * Copies s[offset, offset + length) into dst[0, length) as one byte per
+     * character.
+     *
+     * @return false, leaving dst partly written, if a character is above
+     *         0xFF
+     */
+    static boolean encode(CharSequence s, int offset, int length, byte[] dst) {
+        if (s instanceof String) {
+            // Monomorphic loop: String.charAt inlines to an array load
+            String str = (String) s;
+            for (int i = 0; i < length; i++) {
+                char c = str.charAt(offset + i);
+                if (c > 0xFF) {
+                    return false;
+                }
+                dst[i] = (byte) c;
+            }
+            return true;
+        }
+        for (int i = 0; i < length; i++) {
+            char c = s.charAt(offset + i);
+            if (c > 0xFF) {
+                return false;
+            }
+            dst[i] = (byte) c;
+        }
+        return true;
+    }
+}
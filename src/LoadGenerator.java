@@ -0,0 +1,136 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Closed-loop load test for {@link PalindromeServer}: each client thread
+ * POSTs one input, waits for the answer, and repeats until the duration is
+ * up. Reports throughput, 503s, and latency percentiles of the answered
+ * requests.
+ *
+ * Usage:
+ * java LoadGenerator [--url http://host:port/longest] [--clients 64]
+ * [--size 256] [--family random26] [--duration-ms 10000] [--warmup-ms 2000]
+ *
+ * Without --url, a server with default settings is started on a free port
+ * in this JVM.
+ */
+public class LoadGenerator {
+
+    public static void main(String[] args) throws Exception {
+        String url = null;
+        int clients = 64;
+        int size = 256;
+        String family = "random26";
+        long durationMs = 10_000;
+        long warmupMs = 2_000;
+
+        for (int i = 0; i < args.length; i++) {
+            String option = args[i];
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + option);
+            }
+            String value = args[++i];
+            switch (option) {
+                case "--url":
+                    url = value;
+                    break;
+                case "--clients":
+                    clients = Integer.parseInt(value);
+                    break;
+                case "--size":
+                    size = Integer.parseInt(value);
+                    break;
+                case "--family":
+                    family = value;
+                    break;
+                case "--duration-ms":
+                    durationMs = Long.parseLong(value);
+                    break;
+                case "--warmup-ms":
+                    warmupMs = Long.parseLong(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + option);
+            }
+        }
+
+        PalindromeServer server = null;
+        if (url == null) {
+            server = new PalindromeServer(0).start();
+            url = "http://localhost:" + server.getPort() + "/longest";
+        }
+
+        byte[] body = PerfBenchmark.generate(family, size, 42).getBytes(StandardCharsets.ISO_8859_1);
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body)).build();
+
+        System.out.printf("%d clients, %s inputs of %d chars, against %s%n", clients, family, size, url);
+        run(client, request, clients, warmupMs, null);
+        Result result = new Result();
+        long elapsed = run(client, request, clients, durationMs, result);
+
+        PalindromeMetrics.Histogram latency = result.latency;
+        System.out.printf("%-12s %-12s %-12s %-12s %-12s %-12s %-12s%n",
+                "Answered", "Rejected", "Errors", "req/s", "p50 ms", "p99 ms", "p99.9 ms");
+        System.out.printf("%-12d %-12d %-12d %-12.0f %-12.3f %-12.3f %-12.3f%n",
+                latency.getCount(), result.rejected.sum(), result.errors.sum(),
+                latency.getCount() / (elapsed / 1e9), latency.getValueAtPercentile(50) / 1e6,
+                latency.getValueAtPercentile(99) / 1e6, latency.getValueAtPercentile(99.9) / 1e6);
+
+        if (server != null) {
+            System.out.println(server);
+            server.close();
+        }
+    }
+
+    private static final class Result {
+        final PalindromeMetrics.Histogram latency = new PalindromeMetrics.Histogram();
+        final LongAdder rejected = new LongAdder();
+        final LongAdder errors = new LongAdder();
+    }
+
+    /**
+     * Runs the clients for durationMs, recording into result unless null.
+     *
+     * @return nanoseconds elapsed
+     */
+    private static long run(HttpClient client, HttpRequest request, int clients, long durationMs, Result result)
+            throws InterruptedException {
+        long start = System.nanoTime();
+        long deadline = start + durationMs * 1_000_000L;
+        Thread[] threads = new Thread[clients];
+        for (int t = 0; t < clients; t++) {
+            threads[t] = new Thread(() -> {
+                while (System.nanoTime() < deadline) {
+                    long sent = System.nanoTime();
+                    int status;
+                    try {
+                        status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                    } catch (Exception e) {
+                        status = -1;
+                    }
+                    if (result == null) {
+                        continue;
+                    }
+                    if (status == 200) {
+                        result.latency.record(System.nanoTime() - sent);
+                    } else if (status == 503) {
+                        result.rejected.increment();
+                    } else {
+                        result.errors.increment();
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return System.nanoTime() - start;
+    }
+}
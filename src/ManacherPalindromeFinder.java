@@ -0,0 +1,59 @@
+import java.util.Objects;
+
+/**
+ * Stateless, thread-safe form of the search in {@link Mancher}. Radii go to
+ * the calling thread's {@link PalindromeWorkspace}.
+ */
+public final class ManacherPalindromeFinder implements PalindromeFinder {
+
+    static final ManacherPalindromeFinder INSTANCE = new ManacherPalindromeFinder();
+
+    public static final String NAME = "Manacher";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public long find(CharSequence s, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, s.length());
+        return Mancher.traced(s, offset, length, null, null, null);
+    }
+
+    @Override
+    public long find(char[] s, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, s.length);
+        return Mancher.traced(s, offset, length, null, null, null);
+    }
+
+    @Override
+    public long find(byte[] s, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, s.length);
+        return Mancher.traced(s, offset, length, null, null, null);
+    }
+
+    @Override
+    public PalindromeStats findWithStats(CharSequence s, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, s.length());
+        return stats(s, offset, length);
+    }
+
+    @Override
+    public PalindromeStats findWithStats(char[] s, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, s.length);
+        return stats(s, offset, length);
+    }
+
+    @Override
+    public PalindromeStats findWithStats(byte[] s, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, s.length);
+        return stats(s, offset, length);
+    }
+
+    private static PalindromeStats stats(Object src, int offset, int length) {
+        long[] counters = new long[PalindromeStats.COUNTERS];
+        long range = Mancher.traced(src, offset, length, null, null, counters);
+        return new PalindromeStats(NAME, range, counters);
+    }
+}
@@ -1,27 +1,47 @@
+import java.util.Arrays;
+import java.util.Objects;
+
 /**
  * Manacher's algorithm with detailed tracking
+ *
+ * Instances keep the counters of their last call for the getters below, so
+ * they must not be shared between threads. Use
+ * {@link PalindromeFinder#manacher()} for a shareable, counter-free engine.
  */
 public class Mancher {
 
-    private long comparisonCount = 0L;
-    private long outerLoopCount = 0L;
-    private long mirrorCopies = 0L;
-    private long expansionAttempts = 0L;
+    private final long[] counters = new long[PalindromeStats.COUNTERS];
+    private final PalindromeWorkspace workspace;
+
+    /**
+     * Uses the calling thread's {@link PalindromeWorkspace} for radii.
+     */
+    public Mancher() {
+        this(null);
+    }
+
+    /**
+     * Uses the given workspace for radii; it must be confined to the threads
+     * that use this instance.
+     */
+    public Mancher(PalindromeWorkspace workspace) {
+        this.workspace = workspace;
+    }
 
     public long getComparisonCount() {
-        return comparisonCount;
+        return counters[PalindromeStats.COMPARISONS];
     }
 
     public long getOuterLoopCount() {
-        return outerLoopCount;
+        return counters[PalindromeStats.OUTER_LOOPS];
     }
 
     public long getMirrorCopies() {
-        return mirrorCopies;
+        return counters[PalindromeStats.MIRROR_COPIES];
     }
 
     public long getExpansionAttempts() {
-        return expansionAttempts;
+        return counters[PalindromeStats.EXPANSION_ATTEMPTS];
     }
 
     public static int getTransformedLength(int originalLength) {
@@ -29,61 +49,168 @@ public class Mancher {
     }
 
     public String longestPalindrome(String s) {
-        // Reset counters
-        comparisonCount = 0L;
-        outerLoopCount = 0L;
-        mirrorCopies = 0L;
-        expansionAttempts = 0L;
-
-        if (s == null || s.length() == 0) {
-            return "";
+        if (s == null) {
+            return longestPalindrome("");
         }
-        if (s.length() == 1) {
-            return s;
+
+        long range = longestPalindrome(s, 0, s.length(), null);
+        return PalindromeEvents.extract(ManacherPalindromeFinder.NAME, s, range);
+    }
+
+    public long longestPalindrome(char[] s, int offset, int length) {
+        return longestPalindrome(s, offset, length, null);
+    }
+
+    /**
+     * Allocation-free variant over s[offset, offset + length). When radii has
+     * room for the 2 * length + 1 transformed radii it is used instead of the
+     * workspace, and on return holds them, so callers can inspect every
+     * center, not just the longest.
+     *
+     * @param radii caller-supplied scratch, or null to use the workspace
+     * @return the palindrome packed as a {@link PalindromeRange}, with its
+     *         start as an index into s
+     */
+    public long longestPalindrome(char[] s, int offset, int length, int[] radii) {
+        Objects.checkFromIndexSize(offset, length, s.length);
+        return traced(s, offset, length, radii, workspace, counters);
+    }
+
+    public long longestPalindrome(byte[] s, int offset, int length) {
+        return longestPalindrome(s, offset, length, null);
+    }
+
+    /**
+     * Byte variant of {@link #longestPalindrome(char[], int, int, int[])};
+     * each byte is read as one character.
+     */
+    public long longestPalindrome(byte[] s, int offset, int length, int[] radii) {
+        Objects.checkFromIndexSize(offset, length, s.length);
+        return traced(s, offset, length, radii, workspace, counters);
+    }
+
+    public long longestPalindrome(CharSequence s, int offset, int length) {
+        return longestPalindrome(s, offset, length, null);
+    }
+
+    /**
+     * CharSequence variant of
+     * {@link #longestPalindrome(char[], int, int, int[])}.
+     */
+    public long longestPalindrome(CharSequence s, int offset, int length, int[] radii) {
+        Objects.checkFromIndexSize(offset, length, s.length());
+        return traced(s, offset, length, radii, workspace, counters);
+    }
+
+    /**
+     * {@link #search}, as a {@link PalindromeEvents.Search} event with one
+     * manacher phase when enabled. Shared with
+     * {@link ManacherPalindromeFinder}.
+     *
+     * @param counters this instance's counters, a finder's for
+     *                 findWithStats, or null
+     */
+    static long traced(Object src, int offset, int length, int[] radii, PalindromeWorkspace workspace,
+            long[] counters) {
+        PalindromeEvents.Trace trace = PalindromeEvents.trace(ManacherPalindromeFinder.NAME, length, 1);
+        if (!trace.isOn()) {
+            return search(src, offset, length, radii, workspace, counters);
+        }
+        if (counters == null) {
+            counters = new long[PalindromeStats.COUNTERS];
         }
+        trace.begin("manacher");
+        long range = search(src, offset, length, radii, workspace, counters);
+        trace.end(counters);
+        trace.finish(range, counters, ManacherPalindromeFinder.NAME, PalindromeEvents.COMPLETE);
+        return range;
+    }
 
-        // Transform with '#'
-        StringBuilder sb = new StringBuilder();
-        sb.append('#');
-        for (char c : s.toCharArray()) {
-            sb.append(c).append('#');
+    /**
+     * The search itself, shared by this class and
+     * {@link ManacherPalindromeFinder}. Keeps no state of its own; counters
+     * are only written when the caller passes an array for them (reset here).
+     *
+     * @param workspace scratch for radii when radii is too small, or null for
+     *                  the calling thread's workspace
+     */
+    static long search(Object src, int offset, int length, int[] radii, PalindromeWorkspace workspace,
+            long[] counters) {
+        return search(src, offset, length, radii, workspace, counters, false);
+    }
+
+    /**
+     * @param seeded whether radii (then at least 2 * length + 1 long)
+     *               already holds the exact radius of some centers, and -1
+     *               for the rest; seeded centers are taken as they are,
+     *               without comparisons
+     */
+    static long search(Object src, int offset, int length, int[] radii, PalindromeWorkspace workspace,
+            long[] counters, boolean seeded) {
+        if (counters != null) {
+            Arrays.fill(counters, 0L);
+        }
+
+        if (length <= 1) {
+            // Radii are {0} or {0, 1, 0}; callers may still ask for them
+            if (radii != null && radii.length >= 2 * length + 1) {
+                Arrays.fill(radii, 0, 2 * length + 1, 0);
+                radii[length] = length;
+            }
+            return PalindromeRange.of(offset, length);
+        }
+
+        // Latin-1 text is scanned as bytes (see Latin1)
+        if (src instanceof CharSequence && length >= Latin1.MIN_LENGTH) {
+            PalindromeWorkspace ws = (workspace != null) ? workspace : PalindromeWorkspace.current();
+            byte[] bytes = Latin1.encode((CharSequence) src, offset, length, ws);
+            if (bytes != null) {
+                long range = search(bytes, 0, length, radii, ws, counters, seeded);
+                ws.release();
+                return PalindromeRange.of(offset + PalindromeRange.start(range), PalindromeRange.length(range));
+            }
+            ws.release();
+        }
+
+        // The '#'-transformed string is virtual (see CenterExpansion)
+        int n = 2 * length + 1;
+
+        PalindromeWorkspace ws = null;
+        int[] p = radii;
+        if (p == null || p.length < n) {
+            ws = (workspace != null) ? workspace : PalindromeWorkspace.current();
+            p = ws.ints(n);
         }
-        String t = sb.toString();
-        int n = t.length();
 
-        int[] p = new int[n];
         int center = 0;
         int right = 0;
 
         int bestCenter = 0;
         int bestRadius = 0;
 
-        for (int i = 0; i < n; i++) {
-            outerLoopCount++;
-
-            int mirror = 2 * center - i;
-
-            if (i < right) {
-                p[i] = Math.min(p[mirror], right - i);
-                mirrorCopies++;
-            } else {
-                p[i] = 0;
-            }
+        // Counted whether or not counters are wanted, in locals stored once
+        // at the end, so that counting costs nothing in the loop
+        long mirrorCopies = 0;
+        long comparisons = 0;
 
-            // Attempt expansion
-            int a = i + p[i] + 1;
-            int b = i - p[i] - 1;
-
-            while (b >= 0 && a < n) {
-                expansionAttempts++;
-                comparisonCount++;
-                if (t.charAt(a) == t.charAt(b)) {
-                    p[i]++;
-                    a++;
-                    b--;
+        for (int i = 0; i < n; i++) {
+            // Centers seeded with their exact radius need no expansion
+            if (!seeded || p[i] < 0) {
+                int mirror = 2 * center - i;
+                int radius;
+
+                if (i < right) {
+                    radius = Math.min(p[mirror], right - i);
+                    mirrorCopies++;
                 } else {
-                    break;
+                    radius = 0;
                 }
+
+                // Attempt expansion
+                int limit = Math.min(i, n - 1 - i);
+                p[i] = CenterExpansion.expand(src, offset, i, radius, limit);
+
+                comparisons += CenterExpansion.comparisons(radius, p[i], limit);
             }
 
             // Update rightmost
@@ -99,21 +226,18 @@ public class Mancher {
             }
         }
 
-        // Rebuild result
-        int L = bestCenter - bestRadius;
-        int R = bestCenter + bestRadius;
-
-        int firstOdd = (L % 2 == 1) ? L : L + 1;
-        int lastOdd = (R % 2 == 1) ? R : R - 1;
-
-        int start = (firstOdd - 1) / 2;
-        int end = (lastOdd - 1) / 2;
-
-        if (start < 0)
-            start = 0;
-        if (end >= s.length())
-            end = s.length() - 1;
+        if (ws != null) {
+            ws.release();
+        }
+        if (counters != null) {
+            counters[PalindromeStats.OUTER_LOOPS] = n;
+            counters[PalindromeStats.MIRROR_COPIES] = mirrorCopies;
+            counters[PalindromeStats.EXPANSION_ATTEMPTS] = comparisons;
+            counters[PalindromeStats.COMPARISONS] = comparisons;
+        }
 
-        return s.substring(start, end + 1);
+        // A maximal palindrome starts on a separator, so its first character
+        // is at (bestCenter - bestRadius) / 2
+        return PalindromeRange.of(offset + (bestCenter - bestRadius) / 2, bestRadius);
     }
-}
\ No newline at end of file
+}
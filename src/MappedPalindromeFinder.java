@@ -0,0 +1,350 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Priority search over a file that is memory-mapped rather than loaded, for
+ * inputs larger than the heap.
+ *
+ * The file is mapped read-only in 1 GB chunks and every comparison reads
+ * straight from the mapping, with long positions throughout. The search is
+ * the one in {@link Solution}: centers in descending bestCase order, stopping
+ * as soon as no remaining center can win. It needs no radius arrays at all,
+ * and pages are read from the middle of the file outwards, so once a long
+ * enough palindrome is found the outer parts of the file are never faulted
+ * in. Input without one (random data) is still read in full.
+ *
+ * Latin-1 (and so ASCII) is the default: one byte is one character. UTF-8
+ * is opt-in and has to decode the whole file once; the code points are
+ * spilled to a temporary file that is mapped the same way, so the heap only
+ * holds one byte offset per 4096 code points.
+ */
+public final class MappedPalindromeFinder {
+
+    public static final String NAME = "MappedPriority";
+
+    public enum Encoding {
+        LATIN_1,
+        UTF_8
+    }
+
+    private static final int CHUNK_SHIFT = 30;
+    private static final long CHUNK_MASK = (1L << CHUNK_SHIFT) - 1;
+
+    // One byte offset is kept for every 2^CHECKPOINT_SHIFT code points
+    private static final int CHECKPOINT_SHIFT = 12;
+
+    private final Encoding encoding;
+
+    public MappedPalindromeFinder() {
+        this(Encoding.LATIN_1);
+    }
+
+    public MappedPalindromeFinder(Encoding encoding) {
+        this.encoding = Objects.requireNonNull(encoding, "encoding");
+    }
+
+    public Encoding getEncoding() {
+        return encoding;
+    }
+
+    public Result find(Path path) throws IOException {
+        Mapping bytes;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            bytes = Mapping.map(channel, channel.size(), 1);
+        }
+
+        if (encoding == Encoding.LATIN_1) {
+            return search(bytes, bytes.length);
+        }
+
+        Utf8Spill spill = Utf8Spill.decode(bytes);
+        Result result = search(spill.codePoints, spill.codePoints.length);
+        long start = spill.byteOffset(bytes, result.start);
+        long end = spill.byteOffset(bytes, result.start + result.length);
+        return new Result(start, end - start, result.length, result.positionChecks, result.comparisons);
+    }
+
+    /**
+     * Priority search over characters [0, length) of the mapping, as in
+     * {@link Solution#search}. Start and length are in characters.
+     */
+    private static Result search(Mapping src, long length) {
+        if (length <= 1) {
+            return new Result(0, length, length, 0, 0);
+        }
+
+        long n = 2 * length + 1;
+        long mid = n / 2;
+        long bestRadius = 0;
+        long bestCenter = 0;
+        long positionChecks = 0;
+        long comparisons = 0;
+
+        // Rank 0 is mid, odd ranks 2k - 1 are mid + k, even ranks 2k are
+        // mid - k: descending bestCase, right before left on ties
+        for (long rank = 0; rank < n; rank++) {
+            long k = (rank + 1) >> 1;
+            long potential = mid - k;
+            if (potential <= bestRadius) {
+                break;
+            }
+
+            long center = (rank & 1) == 1 ? mid + k : mid - k;
+            long found = src.expand(center, potential);
+            positionChecks++;
+            comparisons += (found + (found < potential ? 1 : 0));
+
+            if (found > bestRadius) {
+                bestRadius = found;
+                bestCenter = center;
+            }
+        }
+
+        return new Result((bestCenter - bestRadius) / 2, bestRadius, bestRadius, positionChecks, comparisons);
+    }
+
+    /**
+     * A longest palindrome in a file. Start and byte length are byte
+     * positions in the file; length is in characters (code points for
+     * UTF-8).
+     */
+    public static final class Result {
+        private final long start;
+        private final long byteLength;
+        private final long length;
+        private final long positionChecks;
+        private final long comparisons;
+
+        Result(long start, long byteLength, long length, long positionChecks, long comparisons) {
+            this.start = start;
+            this.byteLength = byteLength;
+            this.length = length;
+            this.positionChecks = positionChecks;
+            this.comparisons = comparisons;
+        }
+
+        public long getStart() {
+            return start;
+        }
+
+        public long getByteLength() {
+            return byteLength;
+        }
+
+        public long getLength() {
+            return length;
+        }
+
+        /**
+         * Centers expanded; the rest of the file was never compared.
+         */
+        public long getPositionChecks() {
+            return positionChecks;
+        }
+
+        public long getComparisonCount() {
+            return comparisons;
+        }
+
+        @Override
+        public String toString() {
+            return "[" + start + ", " + (start + byteLength) + ") length=" + length + " positionChecks="
+                    + positionChecks + " comparisons=" + comparisons;
+        }
+    }
+
+    /**
+     * Fixed-width characters (1-byte Latin-1 or 4-byte code points) mapped in
+     * chunks. Chunk sizes are a multiple of the width, so no character
+     * straddles two chunks.
+     */
+    static final class Mapping {
+        final MappedByteBuffer[] chunks;
+        final int width;
+        final long length;
+
+        private Mapping(MappedByteBuffer[] chunks, int width, long length) {
+            this.chunks = chunks;
+            this.width = width;
+            this.length = length;
+        }
+
+        static Mapping map(FileChannel channel, long bytes, int width) throws IOException {
+            int count = (int) ((bytes + CHUNK_MASK) >>> CHUNK_SHIFT);
+            MappedByteBuffer[] chunks = new MappedByteBuffer[count];
+            for (int i = 0; i < count; i++) {
+                long from = (long) i << CHUNK_SHIFT;
+                chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, from, Math.min(CHUNK_MASK + 1, bytes - from));
+                chunks[i].order(ByteOrder.nativeOrder());
+            }
+            return new Mapping(chunks, width, bytes / width);
+        }
+
+        int at(long i) {
+            long pos = i * width;
+            MappedByteBuffer chunk = chunks[(int) (pos >>> CHUNK_SHIFT)];
+            int index = (int) (pos & CHUNK_MASK);
+            return (width == 1) ? chunk.get(index) & 0xFF : chunk.getInt(index);
+        }
+
+        /**
+         * Radius of the transformed center, capped at maxRadius; the same
+         * steps as {@link CenterExpansion#expand} on long positions.
+         */
+        long expand(long center, long maxRadius) {
+            return expand(center, 0, maxRadius);
+        }
+
+        /**
+         * As {@link #expand(long, long)}, from a radius already known to
+         * match.
+         */
+        long expand(long center, long radius, long maxRadius) {
+            if (radius >= maxRadius) {
+                return radius;
+            }
+            if (((center - radius) & 1) == 1) {
+                radius++;
+                if (radius >= maxRadius) {
+                    return radius;
+                }
+            }
+
+            long left = (center - radius - 2) >> 1;
+            long right = (center + radius) >> 1;
+            long maxPairs = (maxRadius - radius + 1) >> 1;
+            long k = 0;
+            while (k < maxPairs && at(left - k) == at(right + k)) {
+                k++;
+            }
+            return Math.min(radius + 2 * k, maxRadius);
+        }
+    }
+
+    /**
+     * A UTF-8 file decoded to one 4-byte code point per character, in a
+     * temporary file that is deleted once mapped.
+     */
+    private static final class Utf8Spill {
+        private static final long MALFORMED = (1L << 32) | 0xFFFD;
+
+        final Mapping codePoints;
+        final long[] checkpoints;
+
+        private Utf8Spill(Mapping codePoints, long[] checkpoints) {
+            this.codePoints = codePoints;
+            this.checkpoints = checkpoints;
+        }
+
+        static Utf8Spill decode(Mapping bytes) throws IOException {
+            Path tmp = Files.createTempFile("palindrome-", ".cp");
+            try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                    StandardOpenOption.DELETE_ON_CLOSE)) {
+                ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.nativeOrder());
+                long[] checkpoints = new long[16];
+                long count = 0;
+                long pos = 0;
+                while (pos < bytes.length) {
+                    checkpoints = checkpoint(checkpoints, count, pos);
+                    long decoded = decode(bytes, pos);
+                    buffer.putInt((int) decoded);
+                    pos += decoded >>> 32;
+                    count++;
+                    if (!buffer.hasRemaining()) {
+                        writeFully(out, buffer);
+                    }
+                }
+                writeFully(out, buffer);
+                // The end of the file is code point count, the end of a
+                // palindrome that runs to it
+                checkpoints = checkpoint(checkpoints, count, pos);
+                return new Utf8Spill(Mapping.map(out, count * 4, 4), checkpoints);
+            }
+        }
+
+        /**
+         * Records pos as the byte position of code point count when count
+         * starts a checkpoint interval.
+         */
+        private static long[] checkpoint(long[] checkpoints, long count, long pos) {
+            if ((count & ((1 << CHECKPOINT_SHIFT) - 1)) == 0) {
+                int slot = (int) (count >>> CHECKPOINT_SHIFT);
+                if (slot == checkpoints.length) {
+                    checkpoints = Arrays.copyOf(checkpoints, slot * 2);
+                }
+                checkpoints[slot] = pos;
+            }
+            return checkpoints;
+        }
+
+        /**
+         * Byte position in the file of code point index, for index up to
+         * the code point count.
+         */
+        long byteOffset(Mapping bytes, long index) {
+            long pos = checkpoints[(int) (index >>> CHECKPOINT_SHIFT)];
+            for (long i = index & ~((1L << CHECKPOINT_SHIFT) - 1); i < index; i++) {
+                pos += decode(bytes, pos) >>> 32;
+            }
+            return pos;
+        }
+
+        private static void writeFully(FileChannel out, ByteBuffer buffer) throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        /**
+         * Decodes the code point at pos: its byte count in the high 32 bits,
+         * the code point in the low 32 bits. Malformed input decodes to
+         * U+FFFD one byte at a time.
+         */
+        private static long decode(Mapping bytes, long pos) {
+            int b = bytes.at(pos);
+            int extra;
+            int cp;
+            if (b < 0x80) {
+                return (1L << 32) | b;
+            } else if (b >= 0xC2 && b < 0xE0) {
+                extra = 1;
+                cp = b & 0x1F;
+            } else if (b >= 0xE0 && b < 0xF0) {
+                extra = 2;
+                cp = b & 0x0F;
+            } else if (b >= 0xF0 && b < 0xF5) {
+                extra = 3;
+                cp = b & 0x07;
+            } else {
+                return MALFORMED;
+            }
+
+            if (pos + extra >= bytes.length) {
+                return MALFORMED;
+            }
+            for (int i = 1; i <= extra; i++) {
+                int c = bytes.at(pos + i);
+                if ((c & 0xC0) != 0x80) {
+                    return MALFORMED;
+                }
+                cp = (cp << 6) | (c & 0x3F);
+            }
+            // Overlong forms, surrogates and values past U+10FFFF
+            if ((extra == 2 && (cp < 0x800 || (cp >= 0xD800 && cp < 0xE000)))
+                    || (extra == 3 && (cp < 0x10000 || cp > 0x10FFFF))) {
+                return MALFORMED;
+            }
+            return ((long) (1 + extra) << 32) | cp;
+        }
+    }
+}
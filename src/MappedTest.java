@@ -0,0 +1,102 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class MappedTest {
+
+    private static int failures = 0;
+
+    public static void main(String[] args) throws IOException {
+        System.out.println("Testing MappedPalindromeFinder against the in-memory Manacher");
+        System.out.println();
+        testCheckpointBoundaries();
+
+        System.out.println();
+        if (failures > 0) {
+            System.out.println("FAILED: " + failures + " check(s) ⚠️");
+            System.exit(1);
+        }
+        System.out.println("All checks passed ✓");
+    }
+
+    /**
+     * Files of one repeated character, so the palindrome is the whole file
+     * and runs to the end, with code point counts on and around the
+     * 4096-code-point checkpoint interval of the UTF-8 decoding. Byte
+     * offsets must match those of Manacher's result, in both encodings.
+     */
+    public static void testCheckpointBoundaries() throws IOException {
+        System.out.println("========================================");
+        System.out.println("MAPPED: palindromes ending at EOF");
+        System.out.println("========================================");
+        System.out.println();
+
+        String[] units = { "a", "é", "€" };
+        int[] counts = { 1, 4095, 4096, 4097, 8192, 65536, 65537 };
+
+        System.out.printf("%-10s %-8s %-10s %-14s %-14s%n", "Unit", "Count", "Encoding", "Expected", "Found");
+        System.out.println("----------------------------------------------------------");
+
+        Path file = Files.createTempFile("mapped-test", ".txt");
+        try {
+            for (String unit : units) {
+                for (int count : counts) {
+                    String text = unit.repeat(count);
+                    byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+                    Files.write(file, utf8);
+
+                    long range = PalindromeFinder.manacher().find(text, 0, text.length());
+                    long start = utf8Length(text, PalindromeRange.start(range));
+                    long end = utf8Length(text, PalindromeRange.end(range));
+                    check(unit, count, "UTF-8", start, end - start,
+                            new MappedPalindromeFinder(MappedPalindromeFinder.Encoding.UTF_8), file);
+
+                    if (unit.charAt(0) < 0x100) {
+                        Files.write(file, text.getBytes(StandardCharsets.ISO_8859_1));
+                        check(unit, count, "Latin-1", PalindromeRange.start(range), PalindromeRange.length(range),
+                                new MappedPalindromeFinder(), file);
+                    }
+                }
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static void check(String unit, int count, String encoding, long start, long length,
+            MappedPalindromeFinder finder, Path file) {
+        String expected = "[" + start + ", " + (start + length) + ")";
+        String found;
+        boolean ok;
+        try {
+            MappedPalindromeFinder.Result result = finder.find(file);
+            found = "[" + result.getStart() + ", " + (result.getStart() + result.getByteLength()) + ")";
+            ok = result.getStart() == start && result.getByteLength() == length;
+        } catch (IOException | RuntimeException e) {
+            found = e.getClass().getSimpleName();
+            ok = false;
+        }
+
+        System.out.printf("%-10s %-8d %-10s %-14s %-14s", escape(unit), count, encoding, expected, found);
+        if (!ok) {
+            System.out.print(" ⚠️  DIFFERS FROM MANACHER");
+            failures++;
+        } else {
+            System.out.print(" ✓");
+        }
+        System.out.println();
+    }
+
+    private static long utf8Length(String s, int end) {
+        return s.substring(0, end).getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    private static String escape(String s) {
+        StringBuilder sb = new StringBuilder();
+        for (char c : s.toCharArray()) {
+            sb.append(c < 0x80 ? String.valueOf(c) : String.format("\\u%04x", (int) c));
+        }
+        return sb.toString();
+    }
+}
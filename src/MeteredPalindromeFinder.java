@@ -0,0 +1,138 @@
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Records the calls of another {@link PalindromeFinder} into
+ * {@link PalindromeMetrics}.
+ *
+ * While the metrics are disabled, {@code find} checks one volatile flag and
+ * calls the finder's {@code find}. While enabled, it times the finder's
+ * {@code findWithStats} instead, so the comparison counts can be recorded;
+ * that costs what the instrumented path costs over the plain one.
+ * {@code findWithStats} is recorded whenever enabled. Thread-safe if the
+ * finder is.
+ *
+ * Each call is recorded under the engine that answered it, as reported in
+ * its {@link PalindromeStats#getEngine()}: a {@link PalindromeEngine} call
+ * goes to RunLength, Novice or Manacher, not Adaptive. The series of the
+ * engines seen so far are cached here, so the lookup is a short scan.
+ */
+public final class MeteredPalindromeFinder implements PalindromeFinder {
+
+    // Engines cached at most; a finder answers through a handful
+    private static final int MAX_ENGINES = 8;
+
+    private final PalindromeFinder finder;
+    private final PalindromeMetrics metrics;
+
+    // Copied on write; a lost race only costs a lookup in the metrics
+    private volatile Engine[] engines = new Engine[0];
+
+    public MeteredPalindromeFinder(PalindromeFinder finder) {
+        this(finder, PalindromeMetrics.global());
+    }
+
+    public MeteredPalindromeFinder(PalindromeFinder finder, PalindromeMetrics metrics) {
+        this.finder = Objects.requireNonNull(finder, "finder");
+        this.metrics = Objects.requireNonNull(metrics, "metrics");
+    }
+
+    @Override
+    public String getName() {
+        return finder.getName();
+    }
+
+    public PalindromeFinder getFinder() {
+        return finder;
+    }
+
+    public PalindromeMetrics getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public long find(CharSequence s, int offset, int length) {
+        if (!metrics.isEnabled()) {
+            return finder.find(s, offset, length);
+        }
+        return findWithStats(s, offset, length).getRange();
+    }
+
+    @Override
+    public long find(char[] s, int offset, int length) {
+        if (!metrics.isEnabled()) {
+            return finder.find(s, offset, length);
+        }
+        return findWithStats(s, offset, length).getRange();
+    }
+
+    @Override
+    public long find(byte[] s, int offset, int length) {
+        if (!metrics.isEnabled()) {
+            return finder.find(s, offset, length);
+        }
+        return findWithStats(s, offset, length).getRange();
+    }
+
+    @Override
+    public PalindromeStats findWithStats(CharSequence s, int offset, int length) {
+        long start = System.nanoTime();
+        PalindromeStats stats = finder.findWithStats(s, offset, length);
+        record(length, start, stats);
+        return stats;
+    }
+
+    @Override
+    public PalindromeStats findWithStats(char[] s, int offset, int length) {
+        long start = System.nanoTime();
+        PalindromeStats stats = finder.findWithStats(s, offset, length);
+        record(length, start, stats);
+        return stats;
+    }
+
+    @Override
+    public PalindromeStats findWithStats(byte[] s, int offset, int length) {
+        long start = System.nanoTime();
+        PalindromeStats stats = finder.findWithStats(s, offset, length);
+        record(length, start, stats);
+        return stats;
+    }
+
+    private void record(int length, long start, PalindromeStats stats) {
+        long nanos = System.nanoTime() - start;
+        if (metrics.isEnabled()) {
+            series(stats.getEngine())[PalindromeMetrics.sizeBucket(length)].record(length, nanos, stats);
+        }
+    }
+
+    private PalindromeMetrics.Series[] series(String engine) {
+        Engine[] known = engines;
+        for (Engine e : known) {
+            if (e.name.equals(engine)) {
+                return e.series;
+            }
+        }
+        PalindromeMetrics.Series[] series = metrics.series(engine);
+        if (known.length < MAX_ENGINES) {
+            Engine[] grown = Arrays.copyOf(known, known.length + 1);
+            grown[known.length] = new Engine(engine, series);
+            engines = grown;
+        }
+        return series;
+    }
+
+    private static final class Engine {
+        final String name;
+        final PalindromeMetrics.Series[] series;
+
+        Engine(String name, PalindromeMetrics.Series[] series) {
+            this.name = name;
+            this.series = series;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "MeteredPalindromeFinder[" + finder.getName() + ", enabled=" + metrics.isEnabled() + "]";
+    }
+}
@@ -0,0 +1,379 @@
+import java.util.Objects;
+
+/**
+ * Longest palindrome under a {@link Normalization}, such as "sentence"
+ * palindromes that ignore case, whitespace and punctuation, reported as
+ * offsets into the original input.
+ *
+ * The input is normalized in one pass into the workspace's byte buffer, one
+ * byte per character, with a 256-entry table covering ASCII and the rest of
+ * Latin-1. Only a character outside Latin-1 costs a Character lookup, and
+ * only a normalized character outside Latin-1 switches the copy to chars
+ * (allocated for that call). The wrapped finder then scans the copy at full
+ * speed.
+ *
+ * Going back to the original offsets takes one compact index map: a
+ * (normalized index, original index) pair per stretch of kept characters,
+ * that is per word of a sentence, in the workspace's index buffer. The
+ * range returned runs from the palindrome's first kept character to its
+ * last, so dropped characters in between are part of it. If nothing is
+ * kept, the result is empty at offset.
+ *
+ * Characters are normalized one UTF-16 unit at a time, with
+ * Character.toLowerCase and Character.isLetterOrDigit; surrogates are not
+ * letters or digits, so {@link Normalization#ALPHANUMERIC} drops
+ * supplementary characters.
+ *
+ * Stateless and thread-safe if the wrapped finder is.
+ */
+public final class NormalizedPalindromeFinder implements PalindromeFinder {
+
+    public enum Normalization {
+        /**
+         * Compares characters lower-cased; keeps everything.
+         */
+        IGNORE_CASE(true, false),
+        /**
+         * Keeps letters and digits only, as they are.
+         */
+        ALPHANUMERIC(false, true),
+        /**
+         * Keeps letters and digits, lower-cased: "A man, a plan, a canal:
+         * Panama" is a palindrome.
+         */
+        SENTENCE(true, true);
+
+        private final boolean foldCase;
+        private final boolean alphanumericOnly;
+
+        // Normalized form of each Latin-1 character, -1 where dropped;
+        // lower-casing never leaves Latin-1
+        private final short[] latin1 = new short[256];
+
+        Normalization(boolean foldCase, boolean alphanumericOnly) {
+            this.foldCase = foldCase;
+            this.alphanumericOnly = alphanumericOnly;
+            for (int c = 0; c < latin1.length; c++) {
+                latin1[c] = (short) apply((char) c);
+            }
+        }
+
+        /**
+         * c normalized, or -1 if it is dropped.
+         */
+        public int apply(char c) {
+            if (alphanumericOnly && !Character.isLetterOrDigit(c)) {
+                return -1;
+            }
+            return foldCase ? Character.toLowerCase(c) : c;
+        }
+    }
+
+    private final PalindromeFinder finder;
+    private final Normalization normalization;
+    private final String name;
+
+    /**
+     * Manacher over the normalized text.
+     */
+    public NormalizedPalindromeFinder(Normalization normalization) {
+        this(PalindromeFinder.manacher(), normalization);
+    }
+
+    public NormalizedPalindromeFinder(PalindromeFinder finder, Normalization normalization) {
+        this.finder = Objects.requireNonNull(finder, "finder");
+        this.normalization = Objects.requireNonNull(normalization, "normalization");
+        this.name = "Normalized" + finder.getName();
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    public PalindromeFinder getFinder() {
+        return finder;
+    }
+
+    public Normalization getNormalization() {
+        return normalization;
+    }
+
+    @Override
+    public long find(CharSequence s, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, s.length());
+        PalindromeEvents.Trace trace = normalizing(length);
+        return search(normalize(s, offset, length), offset, trace);
+    }
+
+    @Override
+    public long find(char[] s, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, s.length);
+        PalindromeEvents.Trace trace = normalizing(length);
+        return search(normalize(s, offset, length), offset, trace);
+    }
+
+    @Override
+    public long find(byte[] s, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, s.length);
+        PalindromeEvents.Trace trace = normalizing(length);
+        return search(normalize(s, offset, length), offset, trace);
+    }
+
+    @Override
+    public PalindromeStats findWithStats(CharSequence s, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, s.length());
+        PalindromeEvents.Trace trace = normalizing(length);
+        return stats(normalize(s, offset, length), offset, trace);
+    }
+
+    @Override
+    public PalindromeStats findWithStats(char[] s, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, s.length);
+        PalindromeEvents.Trace trace = normalizing(length);
+        return stats(normalize(s, offset, length), offset, trace);
+    }
+
+    @Override
+    public PalindromeStats findWithStats(byte[] s, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, s.length);
+        PalindromeEvents.Trace trace = normalizing(length);
+        return stats(normalize(s, offset, length), offset, trace);
+    }
+
+    /**
+     * Starts the trace of a call, in its normalize phase, which
+     * {@link #search} or {@link #stats} ends.
+     */
+    private PalindromeEvents.Trace normalizing(int length) {
+        PalindromeEvents.Trace trace = PalindromeEvents.trace(name, length, 2);
+        trace.begin("normalize");
+        return trace;
+    }
+
+    /**
+     * When traced, goes through {@link #stats} for the counters.
+     */
+    private long search(Normalized text, int offset, PalindromeEvents.Trace trace) {
+        if (trace.isOn()) {
+            return stats(text, offset, trace).getRange();
+        }
+        trace.end(null);
+        long range = (text.bytes != null) ? finder.find(text.bytes, 0, text.length)
+                : finder.find(text.chars, 0, text.length);
+        range = text.original(range, offset);
+        text.ws.release();
+        return range;
+    }
+
+    /**
+     * Traced as a {@link PalindromeEvents.Search} event when enabled, with
+     * the normalize phase and a search phase for the wrapped finder, which
+     * emits its own Search as well.
+     */
+    private PalindromeStats stats(Normalized text, int offset, PalindromeEvents.Trace trace) {
+        trace.end(null);
+        trace.begin("search");
+        PalindromeStats stats = (text.bytes != null) ? finder.findWithStats(text.bytes, 0, text.length)
+                : finder.findWithStats(text.chars, 0, text.length);
+        long range = text.original(stats.getRange(), offset);
+        text.ws.release();
+
+        long[] counters = new long[PalindromeStats.COUNTERS];
+        counters[PalindromeStats.COMPARISONS] = stats.getComparisonCount();
+        counters[PalindromeStats.OUTER_LOOPS] = stats.getOuterLoopCount();
+        counters[PalindromeStats.POSITION_CHECKS] = stats.getPositionChecks();
+        counters[PalindromeStats.EARLY_TERMINATIONS] = stats.getEarlyTerminations();
+        counters[PalindromeStats.MIRROR_COPIES] = stats.getMirrorCopies();
+        counters[PalindromeStats.EXPANSION_ATTEMPTS] = stats.getExpansionAttempts();
+        trace.end(counters);
+        trace.finish(range, counters, stats.getEngine(), PalindromeEvents.COMPLETE);
+        return new PalindromeStats(name, range, counters);
+    }
+
+    /**
+     * The normalized copy of one input and its index map.
+     */
+    private static final class Normalized {
+        final PalindromeWorkspace ws = PalindromeWorkspace.current();
+
+        byte[] bytes;
+        char[] chars;
+        int length;
+
+        // map[2k] is where stretch k of kept characters starts in the copy,
+        // map[2k + 1] where it starts in the input
+        int[] map = ws.indexes(16);
+        int stretches;
+
+        /**
+         * Starts a stretch at copy index length and input index i.
+         */
+        void mark(int i) {
+            if (2 * stretches + 2 > map.length) {
+                int[] grown = ws.indexes(2 * map.length);
+                System.arraycopy(map, 0, grown, 0, 2 * stretches);
+                map = grown;
+            }
+            map[2 * stretches] = length;
+            map[2 * stretches + 1] = i;
+            stretches++;
+        }
+
+        /**
+         * Widens the copy to chars, for a normalized character above 0xFF.
+         */
+        void widen(int capacity) {
+            chars = new char[capacity];
+            for (int k = 0; k < length; k++) {
+                chars[k] = (char) (bytes[k] & 0xFF);
+            }
+            bytes = null;
+        }
+
+        /**
+         * range over the copy, as a range over the input starting at offset.
+         */
+        long original(long range, int offset) {
+            int length = PalindromeRange.length(range);
+            if (length == 0) {
+                return PalindromeRange.of(offset, 0);
+            }
+            int start = inputIndex(PalindromeRange.start(range));
+            int end = inputIndex(PalindromeRange.start(range) + length - 1) + 1;
+            return PalindromeRange.of(offset + start, end - start);
+        }
+
+        /**
+         * Input index of copy index k: binary search for the last stretch
+         * starting at or before k.
+         */
+        private int inputIndex(int k) {
+            int lo = 0;
+            int hi = stretches - 1;
+            while (lo < hi) {
+                int mid = (lo + hi + 1) >>> 1;
+                if (map[2 * mid] <= k) {
+                    lo = mid;
+                } else {
+                    hi = mid - 1;
+                }
+            }
+            return map[2 * lo + 1] + (k - map[2 * lo]);
+        }
+    }
+
+    private Normalized normalize(byte[] s, int offset, int length) {
+        short[] table = normalization.latin1;
+        Normalized text = new Normalized();
+        byte[] out = text.ws.bytes(length);
+        text.bytes = out;
+        boolean kept = false;
+        for (int i = 0; i < length; i++) {
+            int c = table[s[offset + i] & 0xFF];
+            if (c < 0) {
+                kept = false;
+                continue;
+            }
+            if (!kept) {
+                text.mark(i);
+                kept = true;
+            }
+            out[text.length++] = (byte) c;
+        }
+        return text;
+    }
+
+    private Normalized normalize(char[] s, int offset, int length) {
+        short[] table = normalization.latin1;
+        Normalized text = new Normalized();
+        byte[] out = text.ws.bytes(length);
+        text.bytes = out;
+        boolean kept = false;
+        int i = 0;
+        for (; i < length; i++) {
+            char ch = s[offset + i];
+            int c = (ch <= 0xFF) ? table[ch] : normalization.apply(ch);
+            if (c < 0) {
+                kept = false;
+                continue;
+            }
+            if (c > 0xFF) {
+                break;
+            }
+            if (!kept) {
+                text.mark(i);
+                kept = true;
+            }
+            out[text.length++] = (byte) c;
+        }
+        if (i == length) {
+            return text;
+        }
+
+        text.widen(length);
+        char[] wide = text.chars;
+        for (; i < length; i++) {
+            int c = normalization.apply(s[offset + i]);
+            if (c < 0) {
+                kept = false;
+                continue;
+            }
+            if (!kept) {
+                text.mark(i);
+                kept = true;
+            }
+            wide[text.length++] = (char) c;
+        }
+        return text;
+    }
+
+    private Normalized normalize(CharSequence s, int offset, int length) {
+        short[] table = normalization.latin1;
+        Normalized text = new Normalized();
+        byte[] out = text.ws.bytes(length);
+        text.bytes = out;
+        boolean kept = false;
+        int i = 0;
+        for (; i < length; i++) {
+            char ch = s.charAt(offset + i);
+            int c = (ch <= 0xFF) ? table[ch] : normalization.apply(ch);
+            if (c < 0) {
+                kept = false;
+                continue;
+            }
+            if (c > 0xFF) {
+                break;
+            }
+            if (!kept) {
+                text.mark(i);
+                kept = true;
+            }
+            out[text.length++] = (byte) c;
+        }
+        if (i == length) {
+            return text;
+        }
+
+        text.widen(length);
+        char[] wide = text.chars;
+        for (; i < length; i++) {
+            int c = normalization.apply(s.charAt(offset + i));
+            if (c < 0) {
+                kept = false;
+                continue;
+            }
+            if (!kept) {
+                text.mark(i);
+                kept = true;
+            }
+            wide[text.length++] = (char) c;
+        }
+        return text;
+    }
+
+    @Override
+    public String toString() {
+        return getName() + "[" + normalization + "]";
+    }
+}
@@ -0,0 +1,402 @@
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * An editable text that keeps its longest palindrome up to date across
+ * small edits.
+ *
+ * The text lives in a gap buffer, and next to it, gapped the same way, the
+ * Manacher radius of every '#'-transformed center (built by {@link Mancher}
+ * at construction). An edit moves the gap to the edit position, so the
+ * characters and radii on either side keep their slots. A center's radius
+ * depends only on the characters its palindrome covers plus one on each
+ * side, so only centers whose palindrome touches the edit can change.
+ * These are found through segment trees over each slot's right and left
+ * reach, and recomputed in order with Manacher's mirror rule, starting
+ * from the part of their old palindrome the edit left intact. A third tree
+ * over the radii answers the longest-palindrome query in O(log n).
+ *
+ * An edit costs the distance the gap moves, plus O(log n) per affected
+ * center and the length of the palindromes it has to extend. Edits near
+ * the previous one and far from long palindromes are therefore cheap
+ * however long the document is. Inside long runs of one character nearly
+ * every radius changes, and an edit costs about as much as a full pass.
+ *
+ * Memory is 100 to 200 bytes per character of capacity, which grows by
+ * doubling.
+ *
+ * Not thread-safe.
+ */
+public final class PalindromeDocument {
+
+    private static final int MIN_CAPACITY = 16;
+
+    // Text: chars[0, gapStart) and chars[gapEnd, capacity)
+    private char[] chars;
+    private int gapStart;
+    private int gapEnd;
+
+    // Radius of every transformed center, with the matching gap at
+    // [2 * gapStart + 1, 2 * gapEnd + 1); -1 in the gap
+    private int[] radii;
+
+    // Segment trees over radius slots: largest radius, largest slot + radius
+    // (how far right a palindrome reaches) and smallest slot - radius
+    private int leaves;
+    private int[] maxRadius;
+    private int[] maxReach;
+    private int[] minReach;
+
+    // Scratch for the centers an edit affects: slot and old radius
+    private int[] affectedSlots = new int[64];
+    private int[] affectedRadii = new int[64];
+    private int affected;
+
+    private int recomputed;
+
+    public PalindromeDocument() {
+        this("");
+    }
+
+    public PalindromeDocument(CharSequence text) {
+        int length = text.length();
+        int capacity = Math.max(MIN_CAPACITY, 2 * length);
+        chars = new char[capacity];
+        for (int i = 0; i < length; i++) {
+            chars[i] = text.charAt(i);
+        }
+        gapStart = length;
+        gapEnd = capacity;
+
+        radii = new int[2 * capacity + 1];
+        Mancher.search(chars, 0, length, radii, null, null);
+        Arrays.fill(radii, 2 * length + 1, radii.length, -1);
+        buildTrees();
+        refresh(0, radii.length);
+    }
+
+    public int length() {
+        return chars.length - (gapEnd - gapStart);
+    }
+
+    public char charAt(int index) {
+        Objects.checkIndex(index, length());
+        return charAtUnchecked(index);
+    }
+
+    /**
+     * Centers whose radius the last edit recomputed, new ones included.
+     */
+    public int getRecomputedCenters() {
+        return recomputed;
+    }
+
+    public void insert(int position, CharSequence text) {
+        replace(position, 0, text);
+    }
+
+    public void delete(int position, int count) {
+        replace(position, count, "");
+    }
+
+    /**
+     * Replaces the count characters at position with text.
+     */
+    public void replace(int position, int count, CharSequence text) {
+        Objects.checkFromIndexSize(position, count, length());
+        int inserted = text.length();
+        recomputed = 0;
+        if (count == 0 && inserted == 0) {
+            return;
+        }
+
+        if (gapEnd - gapStart + count < inserted) {
+            grow(length() - count + inserted);
+        }
+        moveGap(position);
+
+        // The separator before position stays in place on the left; the
+        // deleted characters and the separators after them go
+        int boundary = 2 * position;
+        int rightStart = 2 * gapEnd + 1 + 2 * count;
+
+        affected = 0;
+        collectReachingRight(1, 0, leaves, boundary, boundary);
+        int leftAffected = affected;
+        collectReachingLeft(1, 0, leaves, rightStart, rightStart - 1);
+
+        for (int i = 0; i < inserted; i++) {
+            chars[gapStart + i] = text.charAt(i);
+        }
+        int deletedFrom = 2 * gapEnd + 1;
+        Arrays.fill(radii, deletedFrom, deletedFrom + 2 * count, -1);
+        refresh(deletedFrom, deletedFrom + 2 * count);
+        gapStart += inserted;
+        gapEnd += count;
+
+        // Recompute left to right so every mirror is up to date when read
+        int gap = 2 * (gapEnd - gapStart);
+        int insertedEnd = boundary + 2 * inserted;
+        int n = 2 * length() + 1;
+        int center = 0;
+        int right = 0;
+        for (int i = 0; i < leftAffected; i++) {
+            int c = affectedSlots[i];
+            int intact = Math.min(affectedRadii[i], boundary - c);
+            int radius = recompute(c, intact, center, right, n);
+            if (c + radius > right) {
+                center = c;
+                right = c + radius;
+            }
+        }
+        for (int c = boundary + 1; c <= insertedEnd; c++) {
+            int radius = recompute(c, c & 1, center, right, n);
+            if (c + radius > right) {
+                center = c;
+                right = c + radius;
+            }
+        }
+        for (int i = leftAffected; i < affected; i++) {
+            int c = affectedSlots[i] - gap;
+            int intact = Math.min(affectedRadii[i], c - insertedEnd);
+            int radius = recompute(c, intact, center, right, n);
+            if (c + radius > right) {
+                center = c;
+                right = c + radius;
+            }
+        }
+        recomputed = affected + 2 * inserted;
+    }
+
+    /**
+     * Start and length of the longest palindrome as a
+     * {@link PalindromeRange}, the leftmost on ties.
+     */
+    public long longest() {
+        int radius = maxRadius[1];
+        int node = 1;
+        while (node < leaves) {
+            node = (maxRadius[2 * node] == radius) ? 2 * node : 2 * node + 1;
+        }
+        int center = logical(node - leaves);
+        return PalindromeRange.of((center - radius) / 2, radius);
+    }
+
+    public String longestPalindrome() {
+        long range = longest();
+        int start = PalindromeRange.start(range);
+        int length = PalindromeRange.length(range);
+        char[] out = new char[length];
+        for (int i = 0; i < length; i++) {
+            out[i] = charAtUnchecked(start + i);
+        }
+        return new String(out);
+    }
+
+    @Override
+    public String toString() {
+        return new String(chars, 0, gapStart) + new String(chars, gapEnd, chars.length - gapEnd);
+    }
+
+    /**
+     * Radius of transformed center c, starting from a radius known to hold
+     * and from its mirror around the rightmost palindrome so far.
+     */
+    private int recompute(int c, int radius, int center, int right, int n) {
+        if (c < right) {
+            radius = Math.max(radius, Math.min(radii[physical(2 * center - c)], right - c));
+        }
+        int limit = Math.min(c, n - 1 - c);
+        // Radii keep c - radius even, so the next positions out are characters
+        while (radius < limit && charAtUnchecked((c - radius - 2) >> 1) == charAtUnchecked((c + radius) >> 1)) {
+            radius += 2;
+        }
+        radius = Math.min(radius, limit);
+        set(physical(c), radius);
+        return radius;
+    }
+
+    private char charAtUnchecked(int index) {
+        return chars[index < gapStart ? index : index + gapEnd - gapStart];
+    }
+
+    private int physical(int transformed) {
+        return transformed <= 2 * gapStart ? transformed : transformed + 2 * (gapEnd - gapStart);
+    }
+
+    private int logical(int slot) {
+        return slot <= 2 * gapStart ? slot : slot - 2 * (gapEnd - gapStart);
+    }
+
+    /**
+     * Moves the gap so that it starts at character position.
+     */
+    private void moveGap(int position) {
+        int gap = gapEnd - gapStart;
+        if (position < gapStart) {
+            int moved = gapStart - position;
+            System.arraycopy(chars, position, chars, position + gap, moved);
+            int from = 2 * position + 1;
+            System.arraycopy(radii, from, radii, from + 2 * gap, 2 * moved);
+            int cleared = Math.min(2 * moved, 2 * gap);
+            Arrays.fill(radii, from, from + cleared, -1);
+            refresh(from, from + cleared);
+            refresh(from + 2 * gap, from + 2 * gap + 2 * moved);
+        } else if (position > gapStart) {
+            int moved = position - gapStart;
+            System.arraycopy(chars, gapEnd, chars, gapStart, moved);
+            int from = 2 * gapEnd + 1;
+            int to = 2 * gapStart + 1;
+            System.arraycopy(radii, from, radii, to, 2 * moved);
+            int cleared = Math.min(2 * moved, 2 * gap);
+            Arrays.fill(radii, from + 2 * moved - cleared, from + 2 * moved, -1);
+            refresh(to, to + 2 * moved);
+            refresh(from + 2 * moved - cleared, from + 2 * moved);
+        }
+        gapStart = position;
+        gapEnd = position + gap;
+    }
+
+    /**
+     * Reallocates with room for at least length characters, keeping the gap
+     * where it is.
+     */
+    private void grow(int length) {
+        int capacity = Math.max(2 * chars.length, length + MIN_CAPACITY);
+        int tail = chars.length - gapEnd;
+        char[] newChars = new char[capacity];
+        System.arraycopy(chars, 0, newChars, 0, gapStart);
+        System.arraycopy(chars, gapEnd, newChars, capacity - tail, tail);
+
+        int[] newRadii = new int[2 * capacity + 1];
+        Arrays.fill(newRadii, -1);
+        System.arraycopy(radii, 0, newRadii, 0, 2 * gapStart + 1);
+        System.arraycopy(radii, 2 * gapEnd + 1, newRadii, 2 * (capacity - tail) + 1, 2 * tail);
+
+        chars = newChars;
+        radii = newRadii;
+        gapEnd = capacity - tail;
+        buildTrees();
+        refresh(0, radii.length);
+    }
+
+    private void buildTrees() {
+        leaves = Integer.highestOneBit(radii.length - 1) << 1;
+        maxRadius = new int[2 * leaves];
+        maxReach = new int[2 * leaves];
+        minReach = new int[2 * leaves];
+        Arrays.fill(maxRadius, -1);
+        Arrays.fill(maxReach, Integer.MIN_VALUE);
+        Arrays.fill(minReach, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Updates one slot's radius and the trees above it.
+     */
+    private void set(int slot, int radius) {
+        if (radii[slot] == radius) {
+            return;
+        }
+        radii[slot] = radius;
+        int node = leaves + slot;
+        leaf(node, slot);
+        // Stop where the trees no longer change
+        node >>= 1;
+        while (node >= 1 && pull(node)) {
+            node >>= 1;
+        }
+    }
+
+    /**
+     * Reloads the leaves of slots [from, to) from radii and the trees above
+     * them.
+     */
+    private void refresh(int from, int to) {
+        if (from >= to) {
+            return;
+        }
+        for (int slot = from; slot < to; slot++) {
+            leaf(leaves + slot, slot);
+        }
+        int lo = (leaves + from) >> 1;
+        int hi = (leaves + to - 1) >> 1;
+        for (; lo >= 1; lo >>= 1, hi >>= 1) {
+            for (int node = lo; node <= hi; node++) {
+                pull(node);
+            }
+        }
+    }
+
+    private void leaf(int node, int slot) {
+        int radius = radii[slot];
+        if (radius < 0) {
+            maxRadius[node] = -1;
+            maxReach[node] = Integer.MIN_VALUE;
+            minReach[node] = Integer.MAX_VALUE;
+        } else {
+            maxRadius[node] = radius;
+            maxReach[node] = slot + radius;
+            minReach[node] = slot - radius;
+        }
+    }
+
+    /**
+     * @return whether the node changed
+     */
+    private boolean pull(int node) {
+        int radius = Math.max(maxRadius[2 * node], maxRadius[2 * node + 1]);
+        int reach = Math.max(maxReach[2 * node], maxReach[2 * node + 1]);
+        int back = Math.min(minReach[2 * node], minReach[2 * node + 1]);
+        if (radius == maxRadius[node] && reach == maxReach[node] && back == minReach[node]) {
+            return false;
+        }
+        maxRadius[node] = radius;
+        maxReach[node] = reach;
+        minReach[node] = back;
+        return true;
+    }
+
+    /**
+     * Adds the slots up to last, in order, whose palindrome reaches
+     * threshold or beyond.
+     */
+    private void collectReachingRight(int node, int from, int size, int last, int threshold) {
+        if (from > last || maxReach[node] < threshold) {
+            return;
+        }
+        if (node >= leaves) {
+            addAffected(node - leaves);
+            return;
+        }
+        int half = size >> 1;
+        collectReachingRight(2 * node, from, half, last, threshold);
+        collectReachingRight(2 * node + 1, from + half, half, last, threshold);
+    }
+
+    /**
+     * Adds the slots from first on, in order, whose palindrome reaches back
+     * to threshold or before.
+     */
+    private void collectReachingLeft(int node, int from, int size, int first, int threshold) {
+        if (from + size <= first || minReach[node] > threshold) {
+            return;
+        }
+        if (node >= leaves) {
+            addAffected(node - leaves);
+            return;
+        }
+        int half = size >> 1;
+        collectReachingLeft(2 * node, from, half, first, threshold);
+        collectReachingLeft(2 * node + 1, from + half, half, first, threshold);
+    }
+
+    private void addAffected(int slot) {
+        if (affected == affectedSlots.length) {
+            affectedSlots = Arrays.copyOf(affectedSlots, 2 * affected);
+            affectedRadii = Arrays.copyOf(affectedRadii, 2 * affected);
+        }
+        affectedSlots[affected] = slot;
+        affectedRadii[affected] = radii[slot];
+        affected++;
+    }
+}
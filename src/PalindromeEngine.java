@@ -0,0 +1,219 @@
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Picks the run-length search, the priority search or Manacher per input.
+ *
+ * Inputs made of few, long runs (at least {@link #DEFAULT_RUN_RATIO}
+ * characters per run on average) go to {@link RunLengthPalindromeFinder},
+ * which costs O(runs) after one pass over the characters. Counting the
+ * runs stops as soon as there are too many, so other inputs pay for a
+ * scan of only about one character in {@link #DEFAULT_RUN_RATIO}.
+ *
+ * The priority search wins by far when it terminates early, i.e. when a
+ * long palindrome sits near the middle, and it is never needed otherwise:
+ * on random text it checks nearly every center, slower per center than
+ * Manacher, and on block-structured text such as WorstCaseTest's ThreeBlocks
+ * it goes quadratic. So every input starts with a bounded probe of the
+ * priority search: at most {@link #DEFAULT_PROBE_CHECKS} plus 1/32 of the
+ * positions, under a linear comparison budget (one full-length expansion
+ * plus {@link #DEFAULT_BUDGET_PER_CHECK} comparisons per position checked).
+ * If the probe has not found the answer, Manacher takes over. The work
+ * thrown away is bounded by the probe, so the total stays linear.
+ *
+ * The length is always the longest; among several palindromes of that
+ * length, the one returned is whichever the answering engine picks.
+ *
+ * Decisions are counted and exposed through the getters, for monitoring,
+ * and each call is traced as {@link PalindromeEvents} when they are enabled.
+ * Stateless apart from those counters, and thread-safe.
+ */
+public final class PalindromeEngine implements PalindromeFinder {
+
+    public static final String NAME = "Adaptive";
+
+    /**
+     * Default comparisons allowed per position checked before switching.
+     */
+    public static final int DEFAULT_BUDGET_PER_CHECK = 4;
+
+    /**
+     * Positions the probe may check on any input, on top of 1/32 of the
+     * transformed length.
+     */
+    public static final int DEFAULT_PROBE_CHECKS = 64;
+
+    /**
+     * Default smallest average run length for which the run-length search
+     * is used.
+     */
+    public static final int DEFAULT_RUN_RATIO = 8;
+
+    private final int budgetPerCheck;
+
+    private final LongAdder runLengthRuns = new LongAdder();
+    private final LongAdder priorityRuns = new LongAdder();
+    private final LongAdder manacherSwitches = new LongAdder();
+
+    public PalindromeEngine() {
+        this(DEFAULT_BUDGET_PER_CHECK);
+    }
+
+    public PalindromeEngine(int budgetPerCheck) {
+        if (budgetPerCheck <= 0) {
+            throw new IllegalArgumentException("budgetPerCheck <= 0: " + budgetPerCheck);
+        }
+        this.budgetPerCheck = budgetPerCheck;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    public int getBudgetPerCheck() {
+        return budgetPerCheck;
+    }
+
+    /**
+     * Calls answered by the run-length search.
+     */
+    public long getRunLengthRuns() {
+        return runLengthRuns.sum();
+    }
+
+    /**
+     * Calls answered by the priority search alone.
+     */
+    public long getPriorityRuns() {
+        return priorityRuns.sum();
+    }
+
+    /**
+     * Calls the probe could not answer, finished by Manacher.
+     */
+    public long getManacherSwitches() {
+        return manacherSwitches.sum();
+    }
+
+    @Override
+    public long find(CharSequence s, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, s.length());
+        return search(s, offset, length, null, null);
+    }
+
+    @Override
+    public long find(char[] s, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, s.length);
+        return search(s, offset, length, null, null);
+    }
+
+    @Override
+    public long find(byte[] s, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, s.length);
+        return search(s, offset, length, null, null);
+    }
+
+    @Override
+    public PalindromeStats findWithStats(CharSequence s, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, s.length());
+        return stats(s, offset, length);
+    }
+
+    @Override
+    public PalindromeStats findWithStats(char[] s, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, s.length);
+        return stats(s, offset, length);
+    }
+
+    @Override
+    public PalindromeStats findWithStats(byte[] s, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, s.length);
+        return stats(s, offset, length);
+    }
+
+    /**
+     * Reported under the engine that answered, so that metrics break calls
+     * down by it.
+     */
+    private PalindromeStats stats(Object src, int offset, int length) {
+        long[] counters = new long[PalindromeStats.COUNTERS];
+        String[] answeredBy = new String[1];
+        long range = search(src, offset, length, counters, answeredBy);
+        return new PalindromeStats(answeredBy[0], range, counters);
+    }
+
+    /**
+     * Traced as a {@link PalindromeEvents.Search} event for the call and a
+     * Phase for each step taken when enabled: runCount, then runLength, or
+     * priorityProbe and, on a switch, manacher.
+     *
+     * @param counters   receives the counters of both phases when a switch
+     *                   happens, or null
+     * @param answeredBy receives the name of the engine that answered, or
+     *                   null
+     */
+    private long search(Object src, int offset, int length, long[] counters, String[] answeredBy) {
+        PalindromeEvents.Trace trace = PalindromeEvents.trace(NAME, length, 3);
+        if (trace.isOn() && counters == null) {
+            counters = new long[PalindromeStats.COUNTERS];
+        }
+
+        int maxRuns = length / DEFAULT_RUN_RATIO;
+        trace.begin("runCount");
+        boolean fewRuns = maxRuns > 0
+                && RunLengthPalindromeFinder.countRuns(src, offset, length, maxRuns) <= maxRuns;
+        trace.end(null);
+        if (fewRuns) {
+            runLengthRuns.increment();
+            answer(answeredBy, RunLengthPalindromeFinder.NAME);
+            trace.begin("runLength");
+            long range = RunLengthPalindromeFinder.search(src, offset, length, null, counters);
+            trace.end(counters);
+            trace.finish(range, counters, RunLengthPalindromeFinder.NAME, PalindromeEvents.RUNS);
+            return range;
+        }
+
+        int n = Solution.getTransformedLength(length);
+        trace.begin("priorityProbe");
+        long range = Solution.search(src, offset, length, counters, n, budgetPerCheck,
+                DEFAULT_PROBE_CHECKS + n / 32, null);
+        trace.end(counters);
+        if (range != Solution.OVER_BUDGET) {
+            priorityRuns.increment();
+            answer(answeredBy, PriorityPalindromeFinder.NAME);
+            if (trace.isOn()) {
+                trace.finish(range, counters, PriorityPalindromeFinder.NAME,
+                        PalindromeEvents.priorityTermination(counters));
+            }
+            return range;
+        }
+
+        manacherSwitches.increment();
+        answer(answeredBy, ManacherPalindromeFinder.NAME);
+        if (counters == null) {
+            return Mancher.search(src, offset, length, null, null, null);
+        }
+        long[] probe = counters.clone();
+        trace.begin("manacher");
+        range = Mancher.search(src, offset, length, null, null, counters);
+        trace.end(counters);
+        for (int i = 0; i < PalindromeStats.COUNTERS; i++) {
+            counters[i] += probe[i];
+        }
+        // The probe's reason for handing over, not Manacher's
+        trace.finish(range, counters, ManacherPalindromeFinder.NAME, PalindromeEvents.OVER_BUDGET);
+        return range;
+    }
+
+    private static void answer(String[] answeredBy, String engine) {
+        if (answeredBy != null) {
+            answeredBy[0] = engine;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return NAME + "[runLengthRuns=" + getRunLengthRuns() + ", priorityRuns=" + getPriorityRuns() + ", manacherSwitches=" + getManacherSwitches() + "]";
+    }
+}
@@ -0,0 +1,279 @@
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Java Flight Recorder events for palindrome searches: one
+ * {@link Search} per call and one {@link Phase} per phase of it, so a slow
+ * call can be lined up with GC and CPU samples in the same recording.
+ *
+ * Both are disabled by default. When off, a call costs one check of the
+ * event type's enabled flag, through a shared probe instance, and
+ * allocates nothing.
+ * They are enabled through JFR settings, for example with palindrome.jfc:
+ *
+ * java -XX:StartFlightRecording:settings=default,settings=palindrome.jfc,filename=rec.jfr ...
+ *
+ * When on, a call takes the engines' counting path, which stores its
+ * counters once per call and costs the same as the plain one. On top of
+ * that, a Search costs about 0.15 us per call (two reads of the thread's
+ * allocation counter) and each Phase about 0.08 us, whether or not the
+ * call passes the threshold. That is under 1% for calls of 40 us and more,
+ * about a thousand characters of random text; for many short strings,
+ * enable only Search or use {@link PalindromeMetrics}.
+ *
+ * Emitted by every search engine, through its finder as well as its
+ * per-instance API ({@link Solution}, {@link Mancher}): each starts a
+ * {@link #trace} per call, which is {@link Trace#OFF} unless Search is
+ * enabled. {@link NormalizedPalindromeFinder} emits its own Search around
+ * the wrapped finder's, with a normalize phase. {@link
+ * CachingPalindromeFinder} and {@link MeteredPalindromeFinder} emit
+ * nothing themselves; the engine they delegate to does.
+ */
+final class PalindromeEvents {
+
+    // Why a search stopped, for Search.termination
+    static final String RUNS = "runs";
+    static final String BEST_CASE = "bestCase";
+    static final String EXHAUSTED = "exhausted";
+    static final String OVER_BUDGET = "overBudget";
+    static final String COMPLETE = "complete";
+
+    // Read-only probes for the types' enabled flags, which JFR keeps per
+    // event class; never begun or committed
+    private static final Search SEARCH = new Search();
+    private static final Phase PHASE = new Phase();
+
+    private PalindromeEvents() {
+    }
+
+    @Name("palindrome.Search")
+    @Label("Palindrome Search")
+    @Category("Palindrome")
+    @Description("One longest-palindrome call")
+    @Enabled(false)
+    @StackTrace(false)
+    @Threshold("0 ms")
+    static final class Search extends Event {
+        @Label("Engine")
+        @Description("Engine that was called")
+        String engine;
+
+        @Label("Answered By")
+        @Description("Engine whose result was returned")
+        String answeredBy;
+
+        @Label("Input Length")
+        int inputLength;
+
+        @Label("Start")
+        int start;
+
+        @Label("Length")
+        int length;
+
+        @Label("Comparisons")
+        long comparisons;
+
+        @Label("Position Checks")
+        long positionChecks;
+
+        @Label("Mirror Copies")
+        long mirrorCopies;
+
+        @Label("Termination")
+        @Description("Why the search stopped: runs, bestCase, exhausted, complete, or overBudget when a probe handed over")
+        String termination;
+
+        @Label("Allocated")
+        @Description("Bytes allocated by the calling thread during the call, or -1 if the JVM does not track them")
+        @DataAmount
+        long allocated;
+    }
+
+    @Name("palindrome.Phase")
+    @Label("Palindrome Phase")
+    @Category("Palindrome")
+    @Description("One phase of a longest-palindrome call")
+    @Enabled(false)
+    @StackTrace(false)
+    @Threshold("0 ms")
+    static final class Phase extends Event {
+        @Label("Engine")
+        String engine;
+
+        @Label("Phase")
+        String phase;
+
+        @Label("Input Length")
+        int inputLength;
+
+        @Label("Comparisons")
+        long comparisons;
+
+        @Label("Position Checks")
+        long positionChecks;
+    }
+
+    /**
+     * Starts tracing one call of engine, with up to phases Phases, or
+     * returns {@link Trace#OFF} when Search events are disabled.
+     */
+    static Trace trace(String engine, int inputLength, int phases) {
+        return SEARCH.isEnabled() ? new Trace(new Search(), engine, inputLength, phases) : Trace.OFF;
+    }
+
+    /**
+     * One traced call: its Search event and up to a fixed number of Phases.
+     */
+    static final class Trace {
+        /**
+         * Records nothing; shared, since it is never written.
+         */
+        static final Trace OFF = new Trace();
+
+        private final Search search;
+        private final Phase[] phases;
+        private final long allocatedBefore;
+        private int next;
+        private Phase phase;
+
+        private Trace() {
+            search = null;
+            phases = new Phase[0];
+            allocatedBefore = -1;
+        }
+
+        /**
+         * @param phases most phases the call can have; they are allocated
+         *               here, before the allocation counter is read, so
+         *               that only the engine's own allocation is reported
+         */
+        private Trace(Search search, String engine, int inputLength, int phases) {
+            this.search = search;
+            search.engine = engine;
+            search.inputLength = inputLength;
+            this.phases = new Phase[PHASE.isEnabled() ? phases : 0];
+            for (int i = 0; i < this.phases.length; i++) {
+                this.phases[i] = new Phase();
+            }
+            allocatedBefore = Allocation.bytes();
+            search.begin();
+        }
+
+        /**
+         * Whether the call is being traced, so the caller has to count.
+         */
+        boolean isOn() {
+            return search != null;
+        }
+
+        /**
+         * Starts a phase; call {@link #end} with its counters when it is
+         * done.
+         */
+        void begin(String name) {
+            if (next == phases.length) {
+                return;
+            }
+            phase = phases[next++];
+            phase.engine = search.engine;
+            phase.phase = name;
+            phase.inputLength = search.inputLength;
+            phase.begin();
+        }
+
+        void end(long[] counters) {
+            if (phase == null) {
+                return;
+            }
+            phase.end();
+            if (phase.shouldCommit()) {
+                if (counters != null) {
+                    phase.comparisons = counters[PalindromeStats.COMPARISONS];
+                    phase.positionChecks = counters[PalindromeStats.POSITION_CHECKS];
+                }
+                phase.commit();
+            }
+            phase = null;
+        }
+
+        void finish(long range, long[] counters, String answeredBy, String termination) {
+            if (search == null) {
+                return;
+            }
+            search.end();
+            if (search.shouldCommit()) {
+                search.answeredBy = answeredBy;
+                search.start = PalindromeRange.start(range);
+                search.length = PalindromeRange.length(range);
+                search.comparisons = counters[PalindromeStats.COMPARISONS];
+                search.positionChecks = counters[PalindromeStats.POSITION_CHECKS];
+                search.mirrorCopies = counters[PalindromeStats.MIRROR_COPIES];
+                search.termination = termination;
+                long after = Allocation.bytes();
+                search.allocated = (after < 0 || allocatedBefore < 0) ? -1 : after - allocatedBefore;
+                search.commit();
+            }
+        }
+    }
+
+    /**
+     * Why the priority search stopped, from its counters.
+     */
+    static String priorityTermination(long[] counters) {
+        return (counters[PalindromeStats.EARLY_TERMINATIONS] > 0) ? BEST_CASE : EXHAUSTED;
+    }
+
+    /**
+     * s.substring over range, as an "extract" phase when enabled.
+     */
+    static String extract(String engine, String s, long range) {
+        if (!PHASE.isEnabled()) {
+            return s.substring(PalindromeRange.start(range), PalindromeRange.end(range));
+        }
+        Phase phase = new Phase();
+        phase.engine = engine;
+        phase.phase = "extract";
+        phase.inputLength = s.length();
+        phase.begin();
+        String result = s.substring(PalindromeRange.start(range), PalindromeRange.end(range));
+        phase.commit();
+        return result;
+    }
+
+    /**
+     * The calling thread's allocation counter, loaded on first use so that
+     * untraced programs never touch java.management.
+     */
+    private static final class Allocation {
+        private static final com.sun.management.ThreadMXBean THREADS = threads();
+
+        private static com.sun.management.ThreadMXBean threads() {
+            ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            if (threads instanceof com.sun.management.ThreadMXBean) {
+                com.sun.management.ThreadMXBean hotspot = (com.sun.management.ThreadMXBean) threads;
+                if (hotspot.isThreadAllocatedMemorySupported() && hotspot.isThreadAllocatedMemoryEnabled()) {
+                    return hotspot;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Bytes allocated by this thread so far, or -1 if unavailable.
+         */
+        static long bytes() {
+            return (THREADS != null) ? THREADS.getCurrentThreadAllocatedBytes() : -1;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+/**
+ * A longest-palindromic-substring engine.
+ *
+ * Implementations are stateless and thread-safe: one instance can be shared
+ * by every request thread. {@code find} is the production path and keeps no
+ * counters at all; {@code findWithStats} is the opt-in instrumented variant
+ * and returns the counters of that call alone.
+ *
+ * Results are packed {@link PalindromeRange}s whose start indexes into the
+ * given source.
+ */
+public interface PalindromeFinder {
+
+    /**
+     * The priority (bestCase-ordered) search of {@link Solution}.
+     */
+    static PalindromeFinder priority() {
+        return PriorityPalindromeFinder.INSTANCE;
+    }
+
+    /**
+     * Manacher's algorithm, as in {@link Mancher}.
+     */
+    static PalindromeFinder manacher() {
+        return ManacherPalindromeFinder.INSTANCE;
+    }
+
+    String getName();
+
+    long find(CharSequence s, int offset, int length);
+
+    long find(char[] s, int offset, int length);
+
+    /**
+     * Reads each byte as one (Latin-1) character.
+     */
+    long find(byte[] s, int offset, int length);
+
+    PalindromeStats findWithStats(CharSequence s, int offset, int length);
+
+    PalindromeStats findWithStats(char[] s, int offset, int length);
+
+    PalindromeStats findWithStats(byte[] s, int offset, int length);
+
+    default String longestPalindrome(String s) {
+        if (s == null) {
+            return "";
+        }
+        long range = find(s, 0, s.length());
+        return s.substring(PalindromeRange.start(range), PalindromeRange.end(range));
+    }
+}
@@ -0,0 +1,344 @@
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+/**
+ * Every center's palindromic radius, built once from Manacher and queried
+ * many times.
+ *
+ * Radii are stored in the narrowest array that fits the largest one (byte,
+ * short or int). Queries answer in O(1) whether a range is a palindrome,
+ * report the total number of palindromic substrings, and list maximal
+ * palindromes by length as packed {@link PalindromeRange}s, without
+ * creating Strings.
+ *
+ * All indices are positions in the source the index was built from. The
+ * index keeps a reference to that source for {@link #topKDistinct}; it must
+ * not be modified afterwards.
+ */
+public final class PalindromeIndex {
+
+    private final Object src;
+    private final int offset;
+    private final int length;
+    private final int maxRadius;
+    private final long palindromeCount;
+    private final long longest;
+
+    // Exactly one of these holds the 2 * length + 1 transformed radii
+    private final byte[] byteRadii;
+    private final short[] shortRadii;
+    private final int[] intRadii;
+
+    private PalindromeIndex(Object src, int offset, int length, int[] radii) {
+        int n = 2 * length + 1;
+        int max = 0;
+        int maxCenter = 0;
+        long count = 0;
+        for (int i = 0; i < n; i++) {
+            if (radii[i] > max) {
+                max = radii[i];
+                maxCenter = i;
+            }
+            // A radius-p center holds palindromes of length p, p - 2, ... > 0
+            count += (radii[i] + 1) / 2;
+        }
+
+        this.src = src;
+        this.offset = offset;
+        this.length = length;
+        this.maxRadius = max;
+        this.palindromeCount = count;
+        this.longest = PalindromeRange.of(offset + (maxCenter - max) / 2, max);
+
+        if (max <= Byte.MAX_VALUE) {
+            byteRadii = new byte[n];
+            for (int i = 0; i < n; i++) {
+                byteRadii[i] = (byte) radii[i];
+            }
+            shortRadii = null;
+            intRadii = null;
+        } else if (max <= Short.MAX_VALUE) {
+            byteRadii = null;
+            shortRadii = new short[n];
+            for (int i = 0; i < n; i++) {
+                shortRadii[i] = (short) radii[i];
+            }
+            intRadii = null;
+        } else {
+            byteRadii = null;
+            shortRadii = null;
+            intRadii = Arrays.copyOf(radii, n);
+        }
+    }
+
+    public static PalindromeIndex build(CharSequence s) {
+        return build(s, 0, s.length());
+    }
+
+    public static PalindromeIndex build(CharSequence s, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, s.length());
+        return build((Object) s, offset, length);
+    }
+
+    public static PalindromeIndex build(char[] s, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, s.length);
+        return build((Object) s, offset, length);
+    }
+
+    public static PalindromeIndex build(byte[] s, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, s.length);
+        return build((Object) s, offset, length);
+    }
+
+    /**
+     * Builds from radii already computed over s[offset, offset + length),
+     * e.g. by {@link ParallelManacherFinder#radii}.
+     */
+    public static PalindromeIndex fromRadii(CharSequence s, int offset, int length, int[] radii) {
+        Objects.checkFromIndexSize(offset, length, s.length());
+        Objects.checkFromIndexSize(0, Mancher.getTransformedLength(length), radii.length);
+        return new PalindromeIndex(s, offset, length, radii);
+    }
+
+    private static PalindromeIndex build(Object src, int offset, int length) {
+        PalindromeWorkspace ws = PalindromeWorkspace.current();
+        int[] radii = ws.ints(Mancher.getTransformedLength(length));
+        Mancher.search(src, offset, length, radii, null, null);
+        PalindromeIndex index = new PalindromeIndex(src, offset, length, radii);
+        ws.release();
+        return index;
+    }
+
+    /**
+     * Number of characters indexed.
+     */
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Radius at transformed center i (0 <= i <= 2 * length): the length of
+     * the longest palindrome centered there.
+     */
+    public int radius(int i) {
+        if (byteRadii != null) {
+            return byteRadii[i];
+        }
+        if (shortRadii != null) {
+            return shortRadii[i];
+        }
+        return intRadii[i];
+    }
+
+    public int getMaxRadius() {
+        return maxRadius;
+    }
+
+    /**
+     * The longest palindrome (leftmost on ties), as Manacher returns it.
+     */
+    public long longest() {
+        return longest;
+    }
+
+    /**
+     * Whether source[from, to) is a palindrome, in O(1).
+     */
+    public boolean isPalindrome(int from, int to) {
+        Objects.checkFromToIndex(from, to, offset + length);
+        if (from < offset) {
+            throw new IndexOutOfBoundsException("from " + from + " is before offset " + offset);
+        }
+        // [from, to) is centered on transformed index (from + to) - 2 * offset
+        return radius(from + to - 2 * offset) >= to - from;
+    }
+
+    /**
+     * Total number of palindromic substrings, counted by position.
+     */
+    public long palindromeCount() {
+        return palindromeCount;
+    }
+
+    /**
+     * Every maximal palindrome (one per center with a non-zero radius),
+     * longest first and leftmost first among equal lengths. Ordering is a
+     * counting sort over radii, so this costs O(n) time and one int per
+     * maximal palindrome.
+     */
+    public LongStream maximalPalindromes() {
+        int n = 2 * length + 1;
+        int[] bucketStart = new int[maxRadius + 2];
+        for (int i = 0; i < n; i++) {
+            bucketStart[maxRadius - radius(i)]++;
+        }
+        // Prefix sums over descending radius; radius 0 is the last bucket
+        int zeros = bucketStart[maxRadius];
+        int total = 0;
+        for (int r = 0; r <= maxRadius; r++) {
+            int count = bucketStart[r];
+            bucketStart[r] = total;
+            total += count;
+        }
+        int[] order = new int[total - zeros];
+        for (int i = 0; i < n; i++) {
+            int r = radius(i);
+            if (r > 0) {
+                order[bucketStart[maxRadius - r]++] = i;
+            }
+        }
+        return IntStream.of(order).mapToLong(this::rangeAt);
+    }
+
+    /**
+     * Up to k longest palindromic substrings with distinct contents, longest
+     * first. Walks centers through a heap keyed by the next shorter
+     * palindrome each one holds, so only as many candidates are visited as
+     * it takes to find k distinct ones.
+     */
+    public long[] topKDistinct(int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException("k < 0: " + k);
+        }
+
+        int n = 2 * length + 1;
+        LongHeap heap = new LongHeap(n);
+        for (int i = 0; i < n; i++) {
+            int r = radius(i);
+            if (r > 0) {
+                heap.add(candidate(r, i));
+            }
+        }
+        heap.heapify();
+
+        long[] result = new long[Math.min(k, n)];
+        int found = 0;
+        while (found < k && !heap.isEmpty()) {
+            long top = heap.poll();
+            int len = (int) (top >>> 32);
+            int center = Integer.MAX_VALUE - (int) top;
+            long range = PalindromeRange.of(offset + (center - len) / 2, len);
+
+            if (!seen(result, found, range)) {
+                result[found++] = range;
+            }
+            if (len > 2) {
+                heap.offer(candidate(len - 2, center));
+            }
+        }
+        return Arrays.copyOf(result, found);
+    }
+
+    private long rangeAt(int center) {
+        int r = radius(center);
+        return PalindromeRange.of(offset + (center - r) / 2, r);
+    }
+
+    /**
+     * Larger is better: longer first, then leftmost center.
+     */
+    private static long candidate(int len, int center) {
+        return ((long) len << 32) | (Integer.MAX_VALUE - center);
+    }
+
+    private boolean seen(long[] chosen, int count, long range) {
+        int len = PalindromeRange.length(range);
+        int start = PalindromeRange.start(range);
+        for (int i = 0; i < count; i++) {
+            if (PalindromeRange.length(chosen[i]) == len
+                    && regionEquals(PalindromeRange.start(chosen[i]), start, len)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean regionEquals(int a, int b, int len) {
+        if (src instanceof byte[]) {
+            byte[] s = (byte[]) src;
+            return Arrays.equals(s, a, a + len, s, b, b + len);
+        }
+        if (src instanceof char[]) {
+            char[] s = (char[]) src;
+            return Arrays.equals(s, a, a + len, s, b, b + len);
+        }
+        CharSequence s = (CharSequence) src;
+        for (int i = 0; i < len; i++) {
+            if (s.charAt(a + i) != s.charAt(b + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Max-heap of primitive longs.
+     */
+    private static final class LongHeap {
+        private long[] heap;
+        private int size;
+
+        LongHeap(int capacity) {
+            heap = new long[Math.max(capacity, 1)];
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        /**
+         * Appends without ordering; call {@link #heapify()} afterwards.
+         */
+        void add(long value) {
+            heap[size++] = value;
+        }
+
+        void heapify() {
+            for (int i = size / 2 - 1; i >= 0; i--) {
+                siftDown(i);
+            }
+        }
+
+        void offer(long value) {
+            if (size == heap.length) {
+                heap = Arrays.copyOf(heap, size * 2);
+            }
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >> 1;
+                if (heap[parent] >= value) {
+                    break;
+                }
+                heap[i] = heap[parent];
+                i = parent;
+            }
+            heap[i] = value;
+        }
+
+        long poll() {
+            long top = heap[0];
+            heap[0] = heap[--size];
+            siftDown(0);
+            return top;
+        }
+
+        private void siftDown(int i) {
+            long value = heap[i];
+            int half = size >> 1;
+            while (i < half) {
+                int child = 2 * i + 1;
+                if (child + 1 < size && heap[child + 1] > heap[child]) {
+                    child++;
+                }
+                if (value >= heap[child]) {
+                    break;
+                }
+                heap[i] = heap[child];
+                i = child;
+            }
+            heap[i] = value;
+        }
+    }
+}
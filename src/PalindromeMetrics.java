@@ -0,0 +1,424 @@
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Production metrics for the palindrome engines: call counts, the engine
+ * counters of {@link PalindromeStats} summed, and histograms of latency and
+ * comparisons per character, per engine and input-size bucket.
+ *
+ * Calls are recorded by {@link MeteredPalindromeFinder}. Metrics start
+ * disabled; a disabled finder costs one volatile read per call and then
+ * runs the plain {@code find}. Enabled, it runs {@code findWithStats}
+ * instead and records the call: a few LongAdder increments and two
+ * histogram buckets.
+ *
+ * Everything can be read at runtime through the getters,
+ * {@link #snapshot()} (a text table), {@link #prometheus()} (the
+ * Prometheus text exposition format) or JMX, after
+ * {@link #registerMBean()}. Thread-safe.
+ */
+public final class PalindromeMetrics implements PalindromeMetricsMXBean {
+
+    /**
+     * Upper bounds (exclusive) of the input-size buckets; the last bucket
+     * is unbounded.
+     */
+    static final int[] SIZE_BOUNDS = { 64, 1 << 10, 1 << 14, 1 << 18, 1 << 22 };
+
+    static final String[] SIZE_LABELS = { "<64", "<1K", "<16K", "<256K", "<4M", ">=4M" };
+
+    private static final PalindromeMetrics GLOBAL = new PalindromeMetrics();
+
+    /**
+     * The instance {@link MeteredPalindromeFinder} records to by default.
+     */
+    public static PalindromeMetrics global() {
+        return GLOBAL;
+    }
+
+    private volatile boolean enabled;
+
+    private final ConcurrentHashMap<String, Series[]> engines = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Registers this instance with the platform MBean server under
+     * palindrome:type=Metrics (the global instance) or
+     * palindrome:type=Metrics,id=identityHash.
+     *
+     * @return the name registered
+     */
+    public ObjectName registerMBean() {
+        try {
+            String name = (this == GLOBAL) ? "palindrome:type=Metrics"
+                    : "palindrome:type=Metrics,id=" + Integer.toHexString(System.identityHashCode(this));
+            ObjectName objectName = new ObjectName(name);
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+            return objectName;
+        } catch (JMException e) {
+            throw new IllegalStateException("cannot register metrics MBean", e);
+        }
+    }
+
+    /**
+     * Zeroes everything recorded; the enabled flag is kept. Calls recorded
+     * concurrently may be partly kept.
+     */
+    @Override
+    public void reset() {
+        for (Series[] series : engines.values()) {
+            for (Series s : series) {
+                s.reset();
+            }
+        }
+    }
+
+    /**
+     * The series of one engine, one per size bucket. Callers that always
+     * record for the same engine look this up once.
+     */
+    Series[] series(String engine) {
+        return engines.computeIfAbsent(engine, e -> {
+            Series[] series = new Series[SIZE_LABELS.length];
+            for (int i = 0; i < series.length; i++) {
+                series[i] = new Series();
+            }
+            return series;
+        });
+    }
+
+    static int sizeBucket(int length) {
+        int bucket = 0;
+        while (bucket < SIZE_BOUNDS.length && length >= SIZE_BOUNDS[bucket]) {
+            bucket++;
+        }
+        return bucket;
+    }
+
+    /**
+     * Records one call of length characters that took nanos.
+     */
+    public void record(String engine, int length, long nanos, PalindromeStats stats) {
+        if (enabled) {
+            series(engine)[sizeBucket(length)].record(length, nanos, stats);
+        }
+    }
+
+    public Series getSeries(String engine, int length) {
+        Series[] series = engines.get(engine);
+        return (series == null) ? null : series[sizeBucket(length)];
+    }
+
+    @Override
+    public long getCalls() {
+        long calls = 0;
+        for (Series[] series : engines.values()) {
+            for (Series s : series) {
+                calls += s.getCalls();
+            }
+        }
+        return calls;
+    }
+
+    @Override
+    public String snapshot() {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("%-16s %-7s %10s %12s %10s %10s %10s %10s %9s %9s%n", "Engine", "Size",
+                "Calls", "Chars", "p50 us", "p99 us", "max us", "cmp/char", "p50 cpc", "p99 cpc"));
+        for (Map.Entry<String, Series[]> entry : sorted().entrySet()) {
+            Series[] series = entry.getValue();
+            for (int b = 0; b < series.length; b++) {
+                Series s = series[b];
+                if (s.getCalls() == 0) {
+                    continue;
+                }
+                out.append(String.format("%-16s %-7s %10d %12d %10.1f %10.1f %10.1f %10.2f %9.2f %9.2f%n",
+                        entry.getKey(), SIZE_LABELS[b], s.getCalls(), s.getChars(),
+                        s.latency.getValueAtPercentile(50) / 1e3, s.latency.getValueAtPercentile(99) / 1e3,
+                        s.latency.getMax() / 1e3, s.getComparisons() / (double) Math.max(1, s.getChars()),
+                        s.comparisonsPerChar.getValueAtPercentile(50) / 100.0,
+                        s.comparisonsPerChar.getValueAtPercentile(99) / 100.0));
+            }
+        }
+        return out.toString();
+    }
+
+    @Override
+    public String prometheus() {
+        Map<String, Series[]> sorted = sorted();
+        StringBuilder out = new StringBuilder();
+
+        counter(out, sorted, "palindrome_calls_total", "Searches recorded", Series::getCalls);
+        counter(out, sorted, "palindrome_chars_total", "Characters searched", Series::getChars);
+        counter(out, sorted, "palindrome_comparisons_total", "Character comparisons", Series::getComparisons);
+        counter(out, sorted, "palindrome_position_checks_total", "Priority search positions checked",
+                Series::getPositionChecks);
+        counter(out, sorted, "palindrome_early_terminations_total", "Priority searches that stopped early",
+                Series::getEarlyTerminations);
+        counter(out, sorted, "palindrome_mirror_copies_total", "Manacher radii copied from a mirror",
+                Series::getMirrorCopies);
+        counter(out, sorted, "palindrome_expansion_attempts_total", "Manacher expansion comparisons",
+                Series::getExpansionAttempts);
+
+        summary(out, sorted, "palindrome_latency_seconds", "Search latency", true);
+        summary(out, sorted, "palindrome_comparisons_per_char", "Comparisons per input character", false);
+        return out.toString();
+    }
+
+    @Override
+    public String toString() {
+        return "PalindromeMetrics[enabled=" + enabled + ", engines=" + engines.size() + ", calls=" + getCalls()
+                + "]";
+    }
+
+    private Map<String, Series[]> sorted() {
+        return new ConcurrentSkipListMap<>(engines);
+    }
+
+    private interface Field {
+        long get(Series s);
+    }
+
+    private static void counter(StringBuilder out, Map<String, Series[]> engines, String name, String help,
+            Field field) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(" counter\n");
+        for (Map.Entry<String, Series[]> entry : engines.entrySet()) {
+            Series[] series = entry.getValue();
+            for (int b = 0; b < series.length; b++) {
+                if (series[b].getCalls() > 0) {
+                    out.append(name).append(labels(entry.getKey(), b, null)).append(' ')
+                            .append(field.get(series[b])).append('\n');
+                }
+            }
+        }
+    }
+
+    private static void summary(StringBuilder out, Map<String, Series[]> engines, String name, String help,
+            boolean latency) {
+        // Latency is recorded in nanoseconds, comparisons per char in 1/100
+        double scale = latency ? 1e-9 : 1e-2;
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(" summary\n");
+        for (Map.Entry<String, Series[]> entry : engines.entrySet()) {
+            Series[] series = entry.getValue();
+            for (int b = 0; b < series.length; b++) {
+                if (series[b].getCalls() == 0) {
+                    continue;
+                }
+                Histogram h = latency ? series[b].latency : series[b].comparisonsPerChar;
+                for (String q : new String[] { "0.5", "0.9", "0.99", "0.999" }) {
+                    out.append(name).append(labels(entry.getKey(), b, q)).append(' ')
+                            .append(h.getValueAtPercentile(100 * Double.parseDouble(q)) * scale).append('\n');
+                }
+                out.append(name).append("_sum").append(labels(entry.getKey(), b, null)).append(' ')
+                        .append(h.getSum() * scale).append('\n');
+                out.append(name).append("_count").append(labels(entry.getKey(), b, null)).append(' ')
+                        .append(h.getCount()).append('\n');
+            }
+        }
+    }
+
+    private static String labels(String engine, int bucket, String quantile) {
+        String labels = "{engine=\"" + engine.replace("\\", "\\\\").replace("\"", "\\\"") + "\",size=\""
+                + SIZE_LABELS[bucket] + "\"";
+        return (quantile == null) ? labels + "}" : labels + ",quantile=\"" + quantile + "\"}";
+    }
+
+    /**
+     * The metrics of one engine and size bucket.
+     */
+    public static final class Series {
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder chars = new LongAdder();
+        private final LongAdder comparisons = new LongAdder();
+        private final LongAdder positionChecks = new LongAdder();
+        private final LongAdder earlyTerminations = new LongAdder();
+        private final LongAdder mirrorCopies = new LongAdder();
+        private final LongAdder expansionAttempts = new LongAdder();
+
+        final Histogram latency = new Histogram();
+        final Histogram comparisonsPerChar = new Histogram();
+
+        void reset() {
+            calls.reset();
+            chars.reset();
+            comparisons.reset();
+            positionChecks.reset();
+            earlyTerminations.reset();
+            mirrorCopies.reset();
+            expansionAttempts.reset();
+            latency.reset();
+            comparisonsPerChar.reset();
+        }
+
+        void record(int length, long nanos, PalindromeStats stats) {
+            calls.increment();
+            chars.add(length);
+            latency.record(nanos);
+            if (stats != null) {
+                comparisons.add(stats.getComparisonCount());
+                positionChecks.add(stats.getPositionChecks());
+                earlyTerminations.add(stats.getEarlyTerminations());
+                mirrorCopies.add(stats.getMirrorCopies());
+                expansionAttempts.add(stats.getExpansionAttempts());
+                comparisonsPerChar.record(100 * stats.getComparisonCount() / Math.max(1, length));
+            }
+        }
+
+        public long getCalls() {
+            return calls.sum();
+        }
+
+        public long getChars() {
+            return chars.sum();
+        }
+
+        public long getComparisons() {
+            return comparisons.sum();
+        }
+
+        public long getPositionChecks() {
+            return positionChecks.sum();
+        }
+
+        public long getEarlyTerminations() {
+            return earlyTerminations.sum();
+        }
+
+        public long getMirrorCopies() {
+            return mirrorCopies.sum();
+        }
+
+        public long getExpansionAttempts() {
+            return expansionAttempts.sum();
+        }
+
+        /**
+         * Latency in nanoseconds.
+         */
+        public Histogram getLatency() {
+            return latency;
+        }
+
+        /**
+         * Comparisons per character, in hundredths.
+         */
+        public Histogram getComparisonsPerChar() {
+            return comparisonsPerChar;
+        }
+    }
+
+    /**
+     * A log-linear histogram of non-negative longs in the style of
+     * HdrHistogram: exact below 32, then 32 buckets per power of two, so any
+     * value is reported within about 3%. Fixed at 1920 buckets.
+     */
+    public static final class Histogram {
+        private static final int SUB_BITS = 5;
+        private static final int SUB_COUNT = 1 << SUB_BITS;
+        private static final int BUCKETS = SUB_COUNT + (64 - SUB_BITS - 1) * SUB_COUNT;
+
+        private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+        private final AtomicLong max = new AtomicLong();
+
+        public void record(long value) {
+            if (value < 0) {
+                value = 0;
+            }
+            counts.incrementAndGet(index(value));
+            count.increment();
+            sum.add(value);
+            long current = max.get();
+            while (value > current && !max.compareAndSet(current, value)) {
+                current = max.get();
+            }
+        }
+
+        void reset() {
+            for (int i = 0; i < BUCKETS; i++) {
+                counts.set(i, 0);
+            }
+            count.reset();
+            sum.reset();
+            max.set(0);
+        }
+
+        static int index(long value) {
+            if (value < SUB_COUNT) {
+                return (int) value;
+            }
+            int bits = 64 - Long.numberOfLeadingZeros(value);
+            int shift = bits - SUB_BITS - 1;
+            int sub = (int) (value >>> shift) - SUB_COUNT;
+            return SUB_COUNT + shift * SUB_COUNT + sub;
+        }
+
+        /**
+         * Largest value that falls in the given bucket.
+         */
+        static long highestValue(int index) {
+            if (index < SUB_COUNT) {
+                return index;
+            }
+            int shift = (index - SUB_COUNT) / SUB_COUNT;
+            int sub = (index - SUB_COUNT) % SUB_COUNT;
+            return ((long) (SUB_COUNT + sub + 1) << shift) - 1;
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public long getSum() {
+            return sum.sum();
+        }
+
+        public long getMax() {
+            return max.get();
+        }
+
+        /**
+         * The value at or below which percentile percent of the recorded
+         * values fall, rounded up to its bucket; 0 if empty.
+         */
+        public long getValueAtPercentile(double percentile) {
+            long total = 0;
+            long[] snapshot = new long[BUCKETS];
+            for (int i = 0; i < BUCKETS; i++) {
+                snapshot[i] = counts.get(i);
+                total += snapshot[i];
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += snapshot[i];
+                if (seen >= rank) {
+                    return Math.min(highestValue(i), getMax());
+                }
+            }
+            return getMax();
+        }
+    }
+}
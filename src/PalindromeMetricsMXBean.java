@@ -0,0 +1,27 @@
+/**
+ * JMX view of {@link PalindromeMetrics}.
+ */
+public interface PalindromeMetricsMXBean {
+
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    /**
+     * Searches recorded, over every engine and size.
+     */
+    long getCalls();
+
+    /**
+     * Per engine and size bucket: calls, characters, latency and
+     * comparisons-per-char percentiles, as a text table.
+     */
+    String snapshot();
+
+    /**
+     * Everything recorded, in the Prometheus text exposition format.
+     */
+    String prometheus();
+
+    void reset();
+}
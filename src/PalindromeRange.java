@@ -0,0 +1,35 @@
+/**
+ * Packs a palindrome's (start, length) into a single long so the primitive
+ * APIs can return a result without allocating.
+ *
+ * The start occupies the high 32 bits and the length the low 32 bits. Both
+ * are non-negative, so a packed range always compares like its start.
+ */
+public final class PalindromeRange {
+
+    private PalindromeRange() {
+    }
+
+    public static long of(int start, int length) {
+        return ((long) start << 32) | (length & 0xFFFFFFFFL);
+    }
+
+    public static int start(long range) {
+        return (int) (range >>> 32);
+    }
+
+    public static int length(long range) {
+        return (int) range;
+    }
+
+    /**
+     * Exclusive end index of the range.
+     */
+    public static int end(long range) {
+        return start(range) + length(range);
+    }
+
+    public static String toString(long range) {
+        return "[" + start(range) + ", " + end(range) + ")";
+    }
+}
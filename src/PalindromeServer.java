@@ -0,0 +1,456 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Embeddable HTTP service for longest-palindrome requests.
+ *
+ * POST /longest with the text as the body (read as Latin-1) answers
+ * {"start":S,"length":L,"exact":true}. GET /metrics returns
+ * {@link PalindromeMetrics#global()} in Prometheus format; the server's
+ * finder is metered there unless it already is, and streamed requests are
+ * recorded as engine {@link #STREAMING}.
+ *
+ * Requests are handled on virtual threads when the runtime has them (Java
+ * 21+), otherwise on a cached pool of platform threads. Handlers do only
+ * I/O; the CPU work is bounded by the worker count, by default one per
+ * core:
+ * <ul>
+ * <li>Bodies of at most smallLength bytes with a Content-Length are read
+ * whole and queued. Each worker takes whatever is queued, up to
+ * {@link #DEFAULT_MAX_BATCH} requests, and answers them as one batch, so a
+ * burst of small requests costs one hand-off per batch rather than per
+ * request. When the queue is full the request gets 503 with Retry-After.</li>
+ * <li>Larger or chunked bodies are streamed into a
+ * {@link StreamingPalindromeFinder}, never held whole. The handler reads
+ * them in chunks of {@link #STREAM_CHUNK} bytes and queues each chunk for
+ * the workers, reading the next one while a worker appends and scans the
+ * last. There is one such finder per worker; when all are busy the request
+ * gets 503. A streamed result is exact when the longest palindrome is
+ * shorter than maxPalindromeLength - 1; otherwise "exact" is false and the
+ * palindrome reported is at least that long.</li>
+ * </ul>
+ * Run standalone with {@code java PalindromeServer [--port 8080]}.
+ */
+public final class PalindromeServer implements AutoCloseable {
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 4096;
+
+    /**
+     * Default largest body, in bytes, answered through the batch queue.
+     */
+    public static final int DEFAULT_SMALL_LENGTH = 1 << 14;
+
+    /**
+     * Default longest palindrome a streamed body is searched for exactly.
+     */
+    public static final int DEFAULT_MAX_PALINDROME_LENGTH = 1 << 16;
+
+    /**
+     * Most requests a worker answers per batch.
+     */
+    public static final int DEFAULT_MAX_BATCH = 64;
+
+    /**
+     * Bytes of a streamed body handed to a worker at a time.
+     */
+    public static final int STREAM_CHUNK = 1 << 16;
+
+    /**
+     * Engine name under which streamed requests are recorded.
+     */
+    public static final String STREAMING = "Streaming";
+
+    static {
+        // Headers and body go out in separate writes: with Nagle on, every
+        // response waits out the client's delayed ACK (~40 ms). Read once,
+        // when the first HttpServer is created.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final HttpServer server;
+    private final ExecutorService handlers;
+    private final PalindromeFinder finder;
+    private final int smallLength;
+    private final int maxPalindromeLength;
+
+    private final BlockingQueue<Job> queue;
+    private final BlockingQueue<Stream> streams;
+    private final Thread[] workers;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder batchedRequests = new LongAdder();
+    private final LongAdder streamed = new LongAdder();
+
+    private volatile boolean closed;
+
+    /**
+     * Adaptive engine, one worker per core and the default limits.
+     */
+    public PalindromeServer(int port) throws IOException {
+        this(new InetSocketAddress(port), new PalindromeEngine(), Runtime.getRuntime().availableProcessors(),
+                DEFAULT_QUEUE_CAPACITY, DEFAULT_SMALL_LENGTH, DEFAULT_MAX_PALINDROME_LENGTH);
+    }
+
+    /**
+     * Binds to address (port 0 picks a free one); call {@link #start()} to
+     * serve.
+     */
+    public PalindromeServer(InetSocketAddress address, PalindromeFinder finder, int workers, int queueCapacity,
+            int smallLength, int maxPalindromeLength) throws IOException {
+        if (workers <= 0) {
+            throw new IllegalArgumentException("workers <= 0: " + workers);
+        }
+        if (queueCapacity <= 0) {
+            throw new IllegalArgumentException("queueCapacity <= 0: " + queueCapacity);
+        }
+        if (smallLength < 0) {
+            throw new IllegalArgumentException("smallLength < 0: " + smallLength);
+        }
+        Objects.requireNonNull(finder, "finder");
+        this.finder = (finder instanceof MeteredPalindromeFinder) ? finder : new MeteredPalindromeFinder(finder);
+        this.smallLength = smallLength;
+        this.maxPalindromeLength = maxPalindromeLength;
+
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.streams = new ArrayBlockingQueue<>(workers);
+        for (int i = 0; i < workers; i++) {
+            streams.add(new Stream(new StreamingPalindromeFinder(maxPalindromeLength)));
+        }
+        this.workers = new Thread[workers];
+        for (int i = 0; i < workers; i++) {
+            this.workers[i] = new Thread(this::work, "palindrome-worker-" + i);
+            this.workers[i].setDaemon(true);
+        }
+
+        this.handlers = handlerExecutor();
+        this.server = HttpServer.create(address, 0);
+        server.setExecutor(handlers);
+        server.createContext("/longest", this::handleLongest);
+        server.createContext("/metrics", this::handleMetrics);
+    }
+
+    /**
+     * A virtual thread per task where available (Java 21+), looked up
+     * reflectively so the class still compiles and runs on 17.
+     */
+    private static ExecutorService handlerExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(r -> {
+                Thread thread = new Thread(r, "palindrome-handler");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    public PalindromeServer start() {
+        for (Thread worker : workers) {
+            worker.start();
+        }
+        server.start();
+        return this;
+    }
+
+    /**
+     * The port bound, useful after binding to port 0.
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public int getWorkers() {
+        return workers.length;
+    }
+
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    /**
+     * Requests answered 503 because the queue or the streams were full.
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    public long getBatches() {
+        return batches.sum();
+    }
+
+    /**
+     * Requests answered through the batch queue.
+     */
+    public long getBatchedRequests() {
+        return batchedRequests.sum();
+    }
+
+    public long getStreamed() {
+        return streamed.sum();
+    }
+
+    /**
+     * Stops accepting, then fails whatever is still queued.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        server.stop(0);
+        for (Thread worker : workers) {
+            worker.interrupt();
+        }
+        Job job;
+        while ((job = queue.poll()) != null) {
+            job.result.completeExceptionally(new IllegalStateException("server closed"));
+        }
+        handlers.shutdown();
+    }
+
+    @Override
+    public String toString() {
+        return "PalindromeServer[port=" + getPort() + ", workers=" + workers.length + ", requests=" + getRequests()
+                + ", rejected=" + getRejected() + ", batches=" + getBatches() + ", streamed=" + getStreamed() + "]";
+    }
+
+    /**
+     * Work for the workers: a whole small body to search, or, for a streamed
+     * body, a chunk to append or (data null) the final scan.
+     */
+    private static final class Job {
+        final byte[] data;
+        final int length;
+        final StreamingPalindromeFinder stream;
+        final CompletableFuture<Long> result = new CompletableFuture<>();
+
+        Job(byte[] data, int length, StreamingPalindromeFinder stream) {
+            this.data = data;
+            this.length = length;
+            this.stream = stream;
+        }
+
+        long run(PalindromeFinder finder) {
+            if (stream == null) {
+                return finder.find(data, 0, length);
+            }
+            if (data == null) {
+                // Scans whatever is pending
+                return stream.getLongestLength();
+            }
+            stream.append(data, 0, length);
+            return 0;
+        }
+    }
+
+    /**
+     * A streaming finder and the two chunks its handler reads into in turn.
+     */
+    private static final class Stream {
+        final StreamingPalindromeFinder finder;
+        final byte[][] chunks = { new byte[STREAM_CHUNK], new byte[STREAM_CHUNK] };
+
+        Stream(StreamingPalindromeFinder finder) {
+            this.finder = finder;
+        }
+    }
+
+    private void work() {
+        List<Job> batch = new ArrayList<>(DEFAULT_MAX_BATCH);
+        while (!closed) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            queue.drainTo(batch, DEFAULT_MAX_BATCH - 1);
+            batches.increment();
+            for (Job job : batch) {
+                if (job.stream == null) {
+                    batchedRequests.increment();
+                }
+                try {
+                    job.result.complete(job.run(finder));
+                } catch (RuntimeException e) {
+                    job.result.completeExceptionally(e);
+                }
+            }
+            batch.clear();
+        }
+    }
+
+    private void handleLongest(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            requests.increment();
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                respond(exchange, 405, "{\"error\":\"POST the text to search\"}");
+                return;
+            }
+
+            String header = exchange.getRequestHeaders().getFirst("Content-Length");
+            long contentLength;
+            try {
+                contentLength = (header == null) ? -1 : Long.parseLong(header.trim());
+            } catch (NumberFormatException e) {
+                respond(exchange, 400, "{\"error\":\"bad Content-Length\"}");
+                return;
+            }
+            if (contentLength >= 0 && contentLength <= smallLength) {
+                answerBatched(exchange, (int) contentLength);
+            } else {
+                answerStreamed(exchange);
+            }
+        }
+    }
+
+    private void answerBatched(HttpExchange exchange, int length) throws IOException {
+        byte[] data;
+        try (InputStream in = exchange.getRequestBody()) {
+            data = in.readNBytes(length);
+        }
+        Job job = new Job(data, data.length, null);
+        if (closed || !queue.offer(job)) {
+            reject(exchange);
+            return;
+        }
+
+        long range;
+        try {
+            range = job.result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            respond(exchange, 503, "{\"error\":\"interrupted\"}");
+            return;
+        } catch (ExecutionException e) {
+            respond(exchange, 500, "{\"error\":\"" + e.getCause().getClass().getSimpleName() + "\"}");
+            return;
+        }
+        respond(exchange, 200, result(PalindromeRange.start(range), PalindromeRange.length(range), true));
+    }
+
+    private void answerStreamed(HttpExchange exchange) throws IOException {
+        Stream stream = closed ? null : streams.poll();
+        if (stream == null) {
+            reject(exchange);
+            return;
+        }
+        try {
+            streamed.increment();
+            long begin = System.nanoTime();
+            StreamingPalindromeFinder finder = stream.finder;
+            finder.reset();
+            int length;
+            try (InputStream in = exchange.getRequestBody()) {
+                Job pending = null;
+                for (int i = 0;; i ^= 1) {
+                    byte[] chunk = stream.chunks[i];
+                    int n = in.readNBytes(chunk, 0, chunk.length);
+                    // A worker appended the previous chunk while this one
+                    // was read
+                    if (pending != null) {
+                        await(pending);
+                    }
+                    if (n == 0) {
+                        break;
+                    }
+                    pending = submit(new Job(chunk, n, finder));
+                }
+                length = (int) await(submit(new Job(null, 0, finder)));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                respond(exchange, 503, "{\"error\":\"interrupted\"}");
+                return;
+            } catch (ExecutionException e) {
+                respond(exchange, 500, "{\"error\":\"" + e.getCause().getClass().getSimpleName() + "\"}");
+                return;
+            }
+            long chars = finder.position();
+            PalindromeMetrics.global().record(STREAMING, (int) Math.min(chars, Integer.MAX_VALUE),
+                    System.nanoTime() - begin, null);
+            respond(exchange, 200, result(finder.getLongestStart(), length, length < maxPalindromeLength - 1));
+        } finally {
+            streams.add(stream);
+        }
+    }
+
+    /**
+     * Queues a job of an admitted stream, waiting while the queue is full:
+     * the stream is already under way, so it is slowed down rather than
+     * rejected.
+     */
+    private Job submit(Job job) throws InterruptedException, ExecutionException {
+        while (!queue.offer(job, 10, TimeUnit.MILLISECONDS)) {
+            if (closed) {
+                throw new ExecutionException(new IllegalStateException("server closed"));
+            }
+        }
+        return job;
+    }
+
+    private static long await(Job job) throws InterruptedException, ExecutionException {
+        return job.result.get();
+    }
+
+    private void handleMetrics(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4");
+            byte[] body = PalindromeMetrics.global().prometheus().getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    private void reject(HttpExchange exchange) throws IOException {
+        rejected.increment();
+        exchange.getResponseHeaders().set("Retry-After", "1");
+        respond(exchange, 503, "{\"error\":\"overloaded\"}");
+    }
+
+    private static String result(long start, int length, boolean exact) {
+        return "{\"start\":" + start + ",\"length\":" + length + ",\"exact\":" + exact + "}";
+    }
+
+    private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = 8080;
+        for (int i = 0; i < args.length; i++) {
+            if ("--port".equals(args[i]) && i + 1 < args.length) {
+                port = Integer.parseInt(args[++i]);
+            } else {
+                throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        PalindromeMetrics.global().setEnabled(true);
+        PalindromeServer server = new PalindromeServer(port).start();
+        System.out.println("Serving POST /longest and GET /metrics on port " + server.getPort());
+    }
+}
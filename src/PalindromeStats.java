@@ -0,0 +1,96 @@
+/**
+ * Immutable result and instrumentation counters of a single palindrome
+ * search, as returned by {@link PalindromeFinder#findWithStats}.
+ *
+ * Counters an engine does not track are 0: the priority search has no
+ * mirror copies, Manacher has no position checks or early terminations.
+ */
+public final class PalindromeStats {
+
+    // Slots of the counters array the engine cores fill in
+    static final int COMPARISONS = 0;
+    static final int OUTER_LOOPS = 1;
+    static final int POSITION_CHECKS = 2;
+    static final int EARLY_TERMINATIONS = 3;
+    static final int MIRROR_COPIES = 4;
+    static final int EXPANSION_ATTEMPTS = 5;
+    static final int COUNTERS = 6;
+
+    private final String engine;
+    private final long range;
+    private final long comparisonCount;
+    private final long outerLoopCount;
+    private final long positionChecks;
+    private final long earlyTerminations;
+    private final long mirrorCopies;
+    private final long expansionAttempts;
+
+    PalindromeStats(String engine, long range, long[] counters) {
+        this.engine = engine;
+        this.range = range;
+        this.comparisonCount = counters[COMPARISONS];
+        this.outerLoopCount = counters[OUTER_LOOPS];
+        this.positionChecks = counters[POSITION_CHECKS];
+        this.earlyTerminations = counters[EARLY_TERMINATIONS];
+        this.mirrorCopies = counters[MIRROR_COPIES];
+        this.expansionAttempts = counters[EXPANSION_ATTEMPTS];
+    }
+
+    /**
+     * The engine that answered; for a finder that routes each input, such
+     * as {@link PalindromeEngine}, the one it picked for this call.
+     */
+    public String getEngine() {
+        return engine;
+    }
+
+    /**
+     * The palindrome found, packed as a {@link PalindromeRange}.
+     */
+    public long getRange() {
+        return range;
+    }
+
+    public int getStart() {
+        return PalindromeRange.start(range);
+    }
+
+    public int getLength() {
+        return PalindromeRange.length(range);
+    }
+
+    public long getComparisonCount() {
+        return comparisonCount;
+    }
+
+    public long getOuterLoopCount() {
+        return outerLoopCount;
+    }
+
+    public long getPositionChecks() {
+        return positionChecks;
+    }
+
+    public long getEarlyTerminations() {
+        return earlyTerminations;
+    }
+
+    public long getMirrorCopies() {
+        return mirrorCopies;
+    }
+
+    public long getExpansionAttempts() {
+        return expansionAttempts;
+    }
+
+    @Override
+    public String toString() {
+        return engine + " " + PalindromeRange.toString(range)
+                + " comparisons=" + comparisonCount
+                + " outerLoops=" + outerLoopCount
+                + " positionChecks=" + positionChecks
+                + " earlyTerminations=" + earlyTerminations
+                + " mirrorCopies=" + mirrorCopies
+                + " expansionAttempts=" + expansionAttempts;
+    }
+}
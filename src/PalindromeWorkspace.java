@@ -0,0 +1,156 @@
+/**
+ * Reusable scratch buffers for the palindrome engines.
+ *
+ * A workspace is not thread-safe; confine it to one thread, or use
+ * {@link #current()} for a per-thread instance. Buffers grow geometrically
+ * and are reused across calls, so steady-state calls on similar inputs
+ * allocate nothing. To keep one huge request from pinning memory forever,
+ * {@link #release()} drops any buffer that grew past the retained capacity.
+ */
+public final class PalindromeWorkspace {
+
+    /**
+     * Default number of elements a buffer may keep between calls (4 MB of
+     * radii).
+     */
+    public static final int DEFAULT_RETAINED_CAPACITY = 1 << 20;
+
+    private static final int MAX_ARRAY_LENGTH = Integer.MAX_VALUE - 8;
+
+    private static final int[] NO_INTS = new int[0];
+    private static final char[] NO_CHARS = new char[0];
+    private static final byte[] NO_BYTES = new byte[0];
+    private static final long[] NO_LONGS = new long[0];
+
+    private static final ThreadLocal<PalindromeWorkspace> CURRENT = ThreadLocal
+            .withInitial(PalindromeWorkspace::new);
+
+    private final int retainedCapacity;
+
+    private int[] ints = NO_INTS;
+    private int[] indexes = NO_INTS;
+    private char[] chars = NO_CHARS;
+    private byte[] bytes = NO_BYTES;
+    private long[] longs = NO_LONGS;
+
+    public PalindromeWorkspace() {
+        this(DEFAULT_RETAINED_CAPACITY);
+    }
+
+    /**
+     * @param retainedCapacity largest buffer length, in elements, kept across
+     *                         {@link #release()}
+     */
+    public PalindromeWorkspace(int retainedCapacity) {
+        if (retainedCapacity < 0) {
+            throw new IllegalArgumentException("retainedCapacity < 0: " + retainedCapacity);
+        }
+        this.retainedCapacity = retainedCapacity;
+    }
+
+    /**
+     * The calling thread's workspace.
+     */
+    public static PalindromeWorkspace current() {
+        return CURRENT.get();
+    }
+
+    public int getRetainedCapacity() {
+        return retainedCapacity;
+    }
+
+    /**
+     * An int buffer of at least minLength elements. Contents are undefined.
+     */
+    public int[] ints(int minLength) {
+        if (ints.length < minLength) {
+            ints = new int[grow(ints.length, minLength)];
+        }
+        return ints;
+    }
+
+    /**
+     * A second int buffer of at least minLength elements, for index maps
+     * that must survive an engine using {@link #ints(int)} for its radii.
+     * Contents are undefined.
+     */
+    public int[] indexes(int minLength) {
+        if (indexes.length < minLength) {
+            indexes = new int[grow(indexes.length, minLength)];
+        }
+        return indexes;
+    }
+
+    /**
+     * A char buffer of at least minLength elements. Contents are undefined.
+     */
+    public char[] chars(int minLength) {
+        if (chars.length < minLength) {
+            chars = new char[grow(chars.length, minLength)];
+        }
+        return chars;
+    }
+
+    /**
+     * A byte buffer of at least minLength elements. Contents are undefined.
+     */
+    public byte[] bytes(int minLength) {
+        if (bytes.length < minLength) {
+            bytes = new byte[grow(bytes.length, minLength)];
+        }
+        return bytes;
+    }
+
+    /**
+     * A long buffer of at least minLength elements, for hashes. Contents are
+     * undefined.
+     */
+    public long[] longs(int minLength) {
+        if (longs.length < minLength) {
+            longs = new long[grow(longs.length, minLength)];
+        }
+        return longs;
+    }
+
+    /**
+     * Ends a call: buffers larger than the retained capacity are dropped so
+     * they can be collected.
+     */
+    public void release() {
+        if (ints.length > retainedCapacity) {
+            ints = NO_INTS;
+        }
+        if (indexes.length > retainedCapacity) {
+            indexes = NO_INTS;
+        }
+        if (chars.length > retainedCapacity) {
+            chars = NO_CHARS;
+        }
+        if (bytes.length > retainedCapacity) {
+            bytes = NO_BYTES;
+        }
+        if (longs.length > retainedCapacity) {
+            longs = NO_LONGS;
+        }
+    }
+
+    /**
+     * Bytes currently held by this workspace's buffers.
+     */
+    public long retainedBytes() {
+        return 4L * ints.length + 4L * indexes.length + 2L * chars.length + bytes.length + 8L * longs.length;
+    }
+
+    /**
+     * Grows by half the current length at a time, or straight to minLength
+     * when that is larger. Growth past the retained capacity goes to exactly
+     * minLength, since that buffer is dropped at release anyway.
+     */
+    private int grow(int current, int minLength) {
+        if (minLength > retainedCapacity) {
+            return minLength;
+        }
+        long grown = Math.max((long) current + (current >> 1), minLength);
+        return (int) Math.min(Math.min(grown, retainedCapacity), MAX_ARRAY_LENGTH);
+    }
+}
@@ -0,0 +1,346 @@
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Segment-parallel form of {@link Mancher}.
+ *
+ * Phase 1 cuts the transformed string into segments and runs Manacher on
+ * each one in parallel, with both the mirror window and the expansions
+ * bounded by the segment. That gives every center its radius truncated at
+ * the segment edges. A center whose palindrome stopped on a mismatch inside
+ * its segment already has its exact radius; the ones that ran into a
+ * segment edge ("touching" centers) are collected.
+ *
+ * Phase 2 stitches: it walks only the touching centers, left to right, and
+ * finishes each one with a Manacher step over the whole string. The mirror
+ * bound comes from earlier touching centers, whose mirrors are either exact
+ * from phase 1 or already stitched; the segment-local radius is a second
+ * lower bound. As in Manacher every successful comparison pushes the
+ * rightmost boundary forward, so stitching costs O(n) comparisons in total
+ * and usually far fewer, since most radii never reach a segment edge.
+ *
+ * The radii come out identical to the sequential p[] array.
+ */
+public final class ParallelManacherFinder implements PalindromeFinder {
+
+    public static final String NAME = "ManacherParallel";
+
+    /**
+     * Default number of transformed positions per segment.
+     */
+    public static final int DEFAULT_SEGMENT_SIZE = 1 << 16;
+
+    private final ForkJoinPool pool;
+    private final int segmentSize;
+
+    /**
+     * Runs on the common pool.
+     */
+    public ParallelManacherFinder() {
+        this(ForkJoinPool.commonPool(), DEFAULT_SEGMENT_SIZE);
+    }
+
+    public ParallelManacherFinder(ForkJoinPool pool, int segmentSize) {
+        if (segmentSize <= 0) {
+            throw new IllegalArgumentException("segmentSize <= 0: " + segmentSize);
+        }
+        this.pool = Objects.requireNonNull(pool, "pool");
+        this.segmentSize = segmentSize;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    @Override
+    public long find(CharSequence s, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, s.length());
+        return search(s, offset, length, null, null);
+    }
+
+    @Override
+    public long find(char[] s, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, s.length);
+        return search(s, offset, length, null, null);
+    }
+
+    @Override
+    public long find(byte[] s, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, s.length);
+        return search(s, offset, length, null, null);
+    }
+
+    @Override
+    public PalindromeStats findWithStats(CharSequence s, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, s.length());
+        return stats(s, offset, length);
+    }
+
+    @Override
+    public PalindromeStats findWithStats(char[] s, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, s.length);
+        return stats(s, offset, length);
+    }
+
+    @Override
+    public PalindromeStats findWithStats(byte[] s, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, s.length);
+        return stats(s, offset, length);
+    }
+
+    /**
+     * All 2 * length + 1 radii of the '#'-transformed string: radii[i] is the
+     * length of the longest palindrome centered on transformed index i, the
+     * same values as {@link Mancher}'s p[] array.
+     */
+    public int[] radii(CharSequence s, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, s.length());
+        int[] radii = new int[Mancher.getTransformedLength(length)];
+        search(s, offset, length, radii, null);
+        return radii;
+    }
+
+    public int[] radii(char[] s, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, s.length);
+        int[] radii = new int[Mancher.getTransformedLength(length)];
+        search(s, offset, length, radii, null);
+        return radii;
+    }
+
+    public int[] radii(byte[] s, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, s.length);
+        int[] radii = new int[Mancher.getTransformedLength(length)];
+        search(s, offset, length, radii, null);
+        return radii;
+    }
+
+    private PalindromeStats stats(Object src, int offset, int length) {
+        long[] counters = new long[PalindromeStats.COUNTERS];
+        long range = search(src, offset, length, null, counters);
+        return new PalindromeStats(NAME, range, counters);
+    }
+
+    /**
+     * Traced as a {@link PalindromeEvents.Search} event when enabled, with
+     * a segments and a stitch phase, or a single manacher phase when the
+     * input is not split.
+     *
+     * @param radii array of at least 2 * length + 1 to receive the radii, or
+     *              null to use the calling thread's workspace
+     */
+    private long search(Object src, int offset, int length, int[] radii, long[] counters) {
+        PalindromeEvents.Trace trace = PalindromeEvents.trace(NAME, length, 2);
+        if (trace.isOn() && counters == null) {
+            counters = new long[PalindromeStats.COUNTERS];
+        }
+
+        int n = 2 * length + 1;
+        int segments = (int) (((long) n + segmentSize - 1) / segmentSize);
+        if (segments <= 1 || pool.getParallelism() <= 1) {
+            trace.begin("manacher");
+            long range = Mancher.search(src, offset, length, radii, null, counters);
+            trace.end(counters);
+            trace.finish(range, counters, NAME, PalindromeEvents.COMPLETE);
+            return range;
+        }
+
+        PalindromeWorkspace ws = null;
+        int[] p = radii;
+        if (p == null) {
+            ws = PalindromeWorkspace.current();
+            p = ws.ints(n);
+        }
+
+        // Latin-1 text is scanned as bytes (see Latin1); the workers only
+        // read them after submit has published them
+        byte[] bytes = null;
+        if (src instanceof CharSequence && length >= Latin1.MIN_LENGTH) {
+            if (ws == null) {
+                ws = PalindromeWorkspace.current();
+            }
+            bytes = Latin1.encode((CharSequence) src, offset, length, ws);
+        }
+        Object text = (bytes != null) ? bytes : src;
+        int textOffset = (bytes != null) ? 0 : offset;
+
+        // Phase 1: segment-local Manacher, in parallel
+        trace.begin("segments");
+        Segment[] parts = new Segment[segments];
+        for (int k = 0; k < segments; k++) {
+            int from = k * segmentSize;
+            parts[k] = new Segment(from, (int) Math.min((long) from + segmentSize, n));
+        }
+
+        AtomicInteger next = new AtomicInteger();
+        int workers = Math.min(pool.getParallelism(), segments);
+        ForkJoinTask<?>[] tasks = new ForkJoinTask<?>[workers];
+        long[][] workerCounters = new long[workers][];
+        for (int w = 0; w < workers; w++) {
+            long[] local = (counters != null) ? new long[PalindromeStats.COUNTERS] : null;
+            workerCounters[w] = local;
+            int[] shared = p;
+            tasks[w] = pool.submit(() -> {
+                int k;
+                while ((k = next.getAndIncrement()) < parts.length) {
+                    parts[k].run(text, textOffset, n, shared, local);
+                }
+            });
+        }
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+
+        if (counters != null) {
+            Arrays.fill(counters, 0L);
+            for (long[] local : workerCounters) {
+                for (int i = 0; i < PalindromeStats.COUNTERS; i++) {
+                    counters[i] += local[i];
+                }
+            }
+        }
+
+        trace.end(counters);
+
+        // Phase 2: stitch the touching centers, left to right; its phase
+        // reports only its own counters
+        long[] stitchCounters = trace.isOn() ? counters.clone() : null;
+        trace.begin("stitch");
+        int bestCenter = 0;
+        int bestRadius = 0;
+        int center = 0;
+        int right = 0;
+
+        for (Segment part : parts) {
+            for (int t = 0; t < part.touchingCount; t++) {
+                int i = part.touching[t];
+                int radius = p[i];
+                if (i < right) {
+                    radius = Math.max(radius, Math.min(p[2 * center - i], right - i));
+                    if (counters != null) {
+                        counters[PalindromeStats.MIRROR_COPIES]++;
+                    }
+                }
+
+                int limit = Math.min(i, n - 1 - i);
+                p[i] = CenterExpansion.expand(text, textOffset, i, radius, limit);
+                if (counters != null) {
+                    long comparisons = CenterExpansion.comparisons(radius, p[i], limit);
+                    counters[PalindromeStats.OUTER_LOOPS]++;
+                    counters[PalindromeStats.EXPANSION_ATTEMPTS] += comparisons;
+                    counters[PalindromeStats.COMPARISONS] += comparisons;
+                }
+
+                if (i + p[i] > right) {
+                    center = i;
+                    right = i + p[i];
+                }
+            }
+
+            // Segments are in order, so keeping the first maximum keeps the
+            // leftmost center, as the sequential search does
+            int segmentBest = part.bestCenter(p);
+            if (p[segmentBest] > bestRadius) {
+                bestRadius = p[segmentBest];
+                bestCenter = segmentBest;
+            }
+        }
+
+        if (stitchCounters != null) {
+            for (int i = 0; i < PalindromeStats.COUNTERS; i++) {
+                stitchCounters[i] = counters[i] - stitchCounters[i];
+            }
+        }
+        trace.end(stitchCounters);
+
+        if (ws != null) {
+            ws.release();
+        }
+
+        long range = PalindromeRange.of(offset + (bestCenter - bestRadius) / 2, bestRadius);
+        trace.finish(range, counters, NAME, PalindromeEvents.COMPLETE);
+        return range;
+    }
+
+    /**
+     * One segment [from, to) of the transformed string.
+     */
+    private static final class Segment {
+        final int from;
+        final int to;
+        int[] touching = new int[16];
+        int touchingCount;
+
+        // Best of the centers that were already exact after phase 1
+        int exactBestCenter = -1;
+
+        Segment(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        void run(Object src, int offset, int n, int[] p, long[] counters) {
+            int center = from;
+            int right = from;
+
+            for (int i = from; i < to; i++) {
+                int mirror = 2 * center - i;
+                int radius;
+                if (i < right) {
+                    radius = Math.min(p[mirror], right - i);
+                    if (counters != null) {
+                        counters[PalindromeStats.MIRROR_COPIES]++;
+                    }
+                } else {
+                    radius = 0;
+                }
+
+                int window = Math.min(i - from, to - 1 - i);
+                p[i] = CenterExpansion.expand(src, offset, i, radius, window);
+                if (counters != null) {
+                    long comparisons = CenterExpansion.comparisons(radius, p[i], window);
+                    counters[PalindromeStats.OUTER_LOOPS]++;
+                    counters[PalindromeStats.EXPANSION_ATTEMPTS] += comparisons;
+                    counters[PalindromeStats.COMPARISONS] += comparisons;
+                }
+
+                if (i + p[i] > right) {
+                    center = i;
+                    right = i + p[i];
+                }
+
+                // Reaching the segment edge before the string's edge means
+                // the true radius may be larger
+                if (p[i] == window && window < Math.min(i, n - 1 - i)) {
+                    if (touchingCount == touching.length) {
+                        touching = Arrays.copyOf(touching, touchingCount * 2);
+                    }
+                    touching[touchingCount++] = i;
+                } else if (exactBestCenter < 0 || p[i] > p[exactBestCenter]) {
+                    exactBestCenter = i;
+                }
+            }
+        }
+
+        /**
+         * Leftmost center of this segment with the largest final radius.
+         */
+        int bestCenter(int[] p) {
+            int best = exactBestCenter;
+            for (int t = 0; t < touchingCount; t++) {
+                int i = touching[t];
+                if (best < 0 || p[i] > p[best] || (p[i] == p[best] && i < best)) {
+                    best = i;
+                }
+            }
+            return best;
+        }
+    }
+}
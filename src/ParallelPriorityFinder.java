@@ -0,0 +1,241 @@
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fork-join form of the priority search in {@link Solution}.
+ *
+ * The sequential search visits centers by rank: mid first, then mid + 1,
+ * mid - 1, mid + 2, mid - 2, ... which is descending bestCase order, right
+ * before left on ties. Here the rank range is cut into chunks that workers
+ * claim in that same order, so the most promising centers are searched
+ * first. The best (radius, rank) found so far is shared through one atomic,
+ * and a worker stops as soon as the next center's bestCase cannot beat it:
+ * every later center is worse still, so the sequential early termination
+ * now prunes all chunks at once.
+ *
+ * The result is the center with the largest radius and, among equal radii,
+ * the lowest rank: exactly what the sequential search returns.
+ */
+public final class ParallelPriorityFinder implements PalindromeFinder {
+
+    public static final String NAME = "NoviceParallel";
+
+    /**
+     * Default number of centers a worker claims at a time.
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 13;
+
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+
+    /**
+     * Runs on the common pool.
+     */
+    public ParallelPriorityFinder() {
+        this(ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+    }
+
+    public ParallelPriorityFinder(ForkJoinPool pool, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize <= 0: " + chunkSize);
+        }
+        this.pool = Objects.requireNonNull(pool, "pool");
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    @Override
+    public long find(CharSequence s, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, s.length());
+        return search(s, offset, length, null);
+    }
+
+    @Override
+    public long find(char[] s, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, s.length);
+        return search(s, offset, length, null);
+    }
+
+    @Override
+    public long find(byte[] s, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, s.length);
+        return search(s, offset, length, null);
+    }
+
+    @Override
+    public PalindromeStats findWithStats(CharSequence s, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, s.length());
+        return stats(s, offset, length);
+    }
+
+    @Override
+    public PalindromeStats findWithStats(char[] s, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, s.length);
+        return stats(s, offset, length);
+    }
+
+    @Override
+    public PalindromeStats findWithStats(byte[] s, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, s.length);
+        return stats(s, offset, length);
+    }
+
+    private PalindromeStats stats(Object src, int offset, int length) {
+        long[] counters = new long[PalindromeStats.COUNTERS];
+        long range = search(src, offset, length, counters);
+        return new PalindromeStats(NAME, range, counters);
+    }
+
+    /**
+     * {@link #parallel}, as a {@link PalindromeEvents.Search} event with one
+     * prioritySearch phase when enabled.
+     */
+    private long search(Object src, int offset, int length, long[] counters) {
+        PalindromeEvents.Trace trace = PalindromeEvents.trace(NAME, length, 1);
+        if (!trace.isOn()) {
+            return parallel(src, offset, length, counters);
+        }
+        if (counters == null) {
+            counters = new long[PalindromeStats.COUNTERS];
+        }
+        trace.begin("prioritySearch");
+        long range = parallel(src, offset, length, counters);
+        trace.end(counters);
+        trace.finish(range, counters, NAME, PalindromeEvents.priorityTermination(counters));
+        return range;
+    }
+
+    private long parallel(Object src, int offset, int length, long[] counters) {
+        int n = 2 * length + 1;
+        int workers = Math.min(pool.getParallelism(), (n + chunkSize - 1) / chunkSize);
+        if (workers <= 1) {
+            return Solution.search(src, offset, length, counters);
+        }
+
+        Search search = new Search(src, offset, n, chunkSize);
+        ForkJoinTask<?>[] tasks = new ForkJoinTask<?>[workers];
+        long[][] workerCounters = new long[workers][];
+        for (int w = 0; w < workers; w++) {
+            long[] local = (counters != null) ? new long[PalindromeStats.COUNTERS] : null;
+            workerCounters[w] = local;
+            tasks[w] = pool.submit(() -> search.run(local));
+        }
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+
+        if (counters != null) {
+            for (long[] local : workerCounters) {
+                for (int i = 0; i < PalindromeStats.COUNTERS; i++) {
+                    counters[i] += local[i];
+                }
+            }
+        }
+
+        long best = search.best.get();
+        int radius = radius(best);
+        int center = search.center(rank(best));
+        return PalindromeRange.of(offset + (center - radius) / 2, radius);
+    }
+
+    /**
+     * Packs (radius, rank) so that a larger key is a better result: longer
+     * first, then lower rank.
+     */
+    static long key(int radius, int rank) {
+        return ((long) radius << 32) | (Integer.MAX_VALUE - rank);
+    }
+
+    static int radius(long key) {
+        return (int) (key >>> 32);
+    }
+
+    static int rank(long key) {
+        return Integer.MAX_VALUE - (int) key;
+    }
+
+    /**
+     * Shared state of one parallel search.
+     */
+    private static final class Search {
+        final Object src;
+        final int offset;
+        final int n;
+        final int mid;
+        final int chunkSize;
+        final AtomicInteger nextChunk = new AtomicInteger();
+        final AtomicLong best;
+
+        Search(Object src, int offset, int n, int chunkSize) {
+            this.src = src;
+            this.offset = offset;
+            this.n = n;
+            this.mid = n / 2;
+            this.chunkSize = chunkSize;
+            // The separator at mid always matches itself: radius 0, rank 0
+            this.best = new AtomicLong(key(0, 0));
+        }
+
+        /**
+         * Rank 0 is mid, odd ranks 2k - 1 are mid + k, even ranks 2k are
+         * mid - k.
+         */
+        int center(int rank) {
+            int k = (rank + 1) >> 1;
+            return (rank & 1) == 1 ? mid + k : mid - k;
+        }
+
+        int bestCase(int rank) {
+            return mid - ((rank + 1) >> 1);
+        }
+
+        void run(long[] counters) {
+            while (true) {
+                int from = nextChunk.getAndIncrement() * chunkSize;
+                if (from >= n || from < 0) {
+                    return;
+                }
+                int to = (int) Math.min((long) from + chunkSize, n);
+
+                for (int rank = from; rank < to; rank++) {
+                    if (counters != null) {
+                        counters[PalindromeStats.OUTER_LOOPS]++;
+                    }
+
+                    // Neither this center nor any later one can win
+                    int potential = bestCase(rank);
+                    long current = best.get();
+                    if (key(potential, rank) <= current) {
+                        if (counters != null) {
+                            counters[PalindromeStats.EARLY_TERMINATIONS]++;
+                        }
+                        return;
+                    }
+
+                    int center = center(rank);
+                    int found = CenterExpansion.expand(src, offset, center, 0, potential);
+                    if (counters != null) {
+                        counters[PalindromeStats.POSITION_CHECKS]++;
+                        counters[PalindromeStats.COMPARISONS] += CenterExpansion.comparisons(0, found, potential);
+                    }
+
+                    long candidate = key(found, rank);
+                    if (candidate > current) {
+                        best.accumulateAndGet(candidate, Math::max);
+                    }
+                }
+            }
+        }
+    }
+}
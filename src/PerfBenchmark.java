@@ -0,0 +1,808 @@
+import com.sun.management.ThreadMXBean;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Steady-state benchmark harness for the palindrome engines.
+ *
+ * Follows the JMH methodology without needing a build tool: every
+ * (engine, family, size) parameter combination gets warm-up iterations that
+ * are thrown away, then timed measurement iterations whose results are sunk
+ * into a blackhole. Reports average time per operation and throughput, plus
+ * the equivalent of JMH's "-prof gc" numbers (bytes allocated per operation
+ * and GC count) read from the platform MXBeans.
+ *
+ * Results are also exported to a CSV with the same columns as
+ * output/benchmark_results.csv so existing dashboards can consume them.
+ *
+ * Usage:
+ * java PerfBenchmark [--engines Novice,Manacher] [--families random26,allSame]
+ * [--sizes 1000,100000] [--mode avgt|thrpt|all] [--warmup 5]
+ * [--iterations 5] [--iteration-ms 1000] [--prof gc] [--csv path]
+ * [--threads 1,2,4,8,16,32]
+ *
+ * --threads sets the pool sizes of the NoviceParallel-N and
+ * ManacherParallel-N engines, giving speedup curves for the parallel
+ * engines.
+ */
+public class PerfBenchmark {
+
+    static final String[] FAMILIES = {
+            "random2", "random4", "random26", "random65536",
+            "allSame", "threeBlocks", "nearPalindrome", "sentences"
+    };
+
+    static final int[] SIZES = { 1_000, 100_000, 10_000_000 };
+
+    static final int[] WINDOWS = { 1 << 10, 1 << 16, 1 << 20 };
+
+    private static volatile long blackhole;
+
+    /**
+     * A named engine under test. {@link #setUp} prepares per-input state
+     * outside of timing, {@link #run} is the measured operation and returns
+     * a value for the blackhole, and {@link #counters} is called once to
+     * fill the comparison columns of the CSV.
+     */
+    abstract static class Engine {
+        final String name;
+
+        Engine(String name) {
+            this.name = name;
+        }
+
+        void setUp(String s) {
+        }
+
+        abstract long run(String s);
+
+        abstract String result(String s);
+
+        /**
+         * Returns {comparisons, outerLoops, positionChecks/mirrorCopies,
+         * earlyTerminations/expansionAttempts} for a single run over s.
+         */
+        abstract long[] counters(String s);
+    }
+
+    static List<Engine> engines(int[] threads) {
+        List<Engine> engines = new ArrayList<>();
+
+        engines.add(new Engine("Novice") {
+            private final Solution solution = new Solution();
+
+            long run(String s) {
+                return solution.longestPalindrome(s).length();
+            }
+
+            String result(String s) {
+                return solution.longestPalindrome(s);
+            }
+
+            long[] counters(String s) {
+                solution.longestPalindrome(s);
+                return new long[] { solution.getComparisonCount(), solution.getOuterLoopCount(),
+                        solution.getPositionChecks(), solution.getEarlyTerminations() };
+            }
+        });
+
+        engines.add(new Engine("NoviceChars") {
+            private final Solution solution = new Solution();
+            private char[] chars;
+
+            void setUp(String s) {
+                chars = s.toCharArray();
+            }
+
+            long run(String s) {
+                return solution.longestPalindrome(chars, 0, chars.length);
+            }
+
+            String result(String s) {
+                long range = run(s);
+                return s.substring(PalindromeRange.start(range), PalindromeRange.end(range));
+            }
+
+            long[] counters(String s) {
+                run(s);
+                return new long[] { solution.getComparisonCount(), solution.getOuterLoopCount(),
+                        solution.getPositionChecks(), solution.getEarlyTerminations() };
+            }
+        });
+
+        engines.add(new Engine("Manacher") {
+            private final Mancher mancher = new Mancher();
+
+            long run(String s) {
+                return mancher.longestPalindrome(s).length();
+            }
+
+            String result(String s) {
+                return mancher.longestPalindrome(s);
+            }
+
+            long[] counters(String s) {
+                mancher.longestPalindrome(s);
+                return new long[] { mancher.getComparisonCount(), mancher.getOuterLoopCount(),
+                        mancher.getMirrorCopies(), mancher.getExpansionAttempts() };
+            }
+        });
+
+        engines.add(new Engine("ManacherChars") {
+            private final Mancher mancher = new Mancher();
+            private char[] chars;
+
+            void setUp(String s) {
+                chars = s.toCharArray();
+            }
+
+            long run(String s) {
+                return mancher.longestPalindrome(chars, 0, chars.length);
+            }
+
+            String result(String s) {
+                long range = run(s);
+                return s.substring(PalindromeRange.start(range), PalindromeRange.end(range));
+            }
+
+            long[] counters(String s) {
+                run(s);
+                return new long[] { mancher.getComparisonCount(), mancher.getOuterLoopCount(),
+                        mancher.getMirrorCopies(), mancher.getExpansionAttempts() };
+            }
+        });
+
+        engines.add(finderEngine("NoviceFinder", PalindromeFinder.priority(), false));
+        engines.add(finderEngine("NoviceFinderStats", PalindromeFinder.priority(), true));
+        engines.add(finderEngine("ManacherFinder", PalindromeFinder.manacher(), false));
+        engines.add(finderEngine("ManacherFinderStats", PalindromeFinder.manacher(), true));
+        engines.add(finderEngine(PalindromeEngine.NAME, new PalindromeEngine(), false));
+        engines.add(finderEngine(RunLengthPalindromeFinder.NAME, new RunLengthPalindromeFinder(), false));
+
+        // Up to k mismatched pairs; KMismatch0 finds what ManacherFinder does
+        engines.add(finderEngine("KMismatch0", new KMismatchPalindromeFinder(0), false));
+        engines.add(finderEngine("KMismatch2", new KMismatchPalindromeFinder(2), false));
+
+        // Every run after the first is a hit: hashing plus lookup, at any
+        // length, against ManacherFinder's full search
+        engines.add(finderEngine("CachedManacher", new CachingPalindromeFinder(PalindromeFinder.manacher(),
+                CachingPalindromeFinder.DEFAULT_MAX_BYTES, 0), false));
+
+        // Sentence palindromes: normalized on the fly with offsets mapped
+        // back, against the usual pre-processing (two full-size copies, and
+        // the offsets are lost)
+        engines.add(finderEngine("NormalizedManacher",
+                new NormalizedPalindromeFinder(NormalizedPalindromeFinder.Normalization.SENTENCE), false));
+        engines.add(new Engine("PreprocessedManacher") {
+            long run(String s) {
+                String normalized = s.toLowerCase().replaceAll("[^a-z0-9]", "");
+                return PalindromeFinder.manacher().find(normalized, 0, normalized.length());
+            }
+
+            String result(String s) {
+                String normalized = s.toLowerCase().replaceAll("[^a-z0-9]", "");
+                long range = PalindromeFinder.manacher().find(normalized, 0, normalized.length());
+                return normalized.substring(PalindromeRange.start(range), PalindromeRange.end(range));
+            }
+
+            long[] counters(String s) {
+                String normalized = s.toLowerCase().replaceAll("[^a-z0-9]", "");
+                return PerfBenchmark.counters(PalindromeFinder.manacher().findWithStats(normalized, 0,
+                        normalized.length()));
+            }
+        });
+
+        // Metering overhead against ManacherFinder: disabled should match it,
+        // enabled should match ManacherFinderStats plus the recording
+        engines.add(finderEngine("MeteredManacherOff",
+                new MeteredPalindromeFinder(PalindromeFinder.manacher(), new PalindromeMetrics()), false));
+        PalindromeMetrics enabledMetrics = new PalindromeMetrics();
+        enabledMetrics.setEnabled(true);
+        engines.add(finderEngine("MeteredManacherOn",
+                new MeteredPalindromeFinder(PalindromeFinder.manacher(), enabledMetrics), false));
+
+        // ManacherFinder over a String (narrowed to Latin-1 bytes inside), and
+        // both finders over input that arrives as bytes
+        engines.add(new Engine("ManacherFinderString") {
+            long run(String s) {
+                return PalindromeFinder.manacher().find(s, 0, s.length());
+            }
+
+            String result(String s) {
+                long range = run(s);
+                return s.substring(PalindromeRange.start(range), PalindromeRange.end(range));
+            }
+
+            long[] counters(String s) {
+                return PerfBenchmark.counters(PalindromeFinder.manacher().findWithStats(s, 0, s.length()));
+            }
+        });
+
+        engines.add(bytesEngine("NoviceFinderBytes", PalindromeFinder.priority()));
+        engines.add(bytesEngine("ManacherFinderBytes", PalindromeFinder.manacher()));
+
+        // Fed in 8K pieces, as a Reader would; sized so the result is exact
+        engines.add(new Engine("Streaming") {
+            private StreamingPalindromeFinder finder;
+            private char[] chars;
+
+            void setUp(String s) {
+                chars = s.toCharArray();
+                finder = new StreamingPalindromeFinder(Math.max(chars.length, 1));
+            }
+
+            long run(String s) {
+                finder.reset();
+                for (int off = 0; off < chars.length; off += 8192) {
+                    finder.append(chars, off, Math.min(8192, chars.length - off));
+                }
+                return finder.getLongestLength();
+            }
+
+            String result(String s) {
+                run(s);
+                return finder.getLongest();
+            }
+
+            long[] counters(String s) {
+                return new long[4];
+            }
+        });
+
+        // Speedup curves of the parallel engines, one pool per thread count
+        for (int t : threads) {
+            ForkJoinPool pool = new ForkJoinPool(t);
+            engines.add(finderEngine(ParallelPriorityFinder.NAME + "-" + t,
+                    new ParallelPriorityFinder(pool, ParallelPriorityFinder.DEFAULT_CHUNK_SIZE), false));
+            engines.add(finderEngine(ParallelManacherFinder.NAME + "-" + t,
+                    new ParallelManacherFinder(pool, ParallelManacherFinder.DEFAULT_SEGMENT_SIZE), false));
+        }
+
+        // Many short strings: one Solution call each against one batch call
+        engines.add(new Engine("NoviceLoop") {
+            private final Solution solution = new Solution();
+            private List<String> pieces;
+
+            void setUp(String s) {
+                pieces = pieces(s);
+            }
+
+            long run(String s) {
+                long sum = 0;
+                for (String piece : pieces) {
+                    sum += solution.longestPalindrome(piece).length();
+                }
+                return sum;
+            }
+
+            String result(String s) {
+                String best = "";
+                for (String piece : pieces) {
+                    String found = solution.longestPalindrome(piece);
+                    if (found.length() > best.length()) {
+                        best = found;
+                    }
+                }
+                return best;
+            }
+
+            long[] counters(String s) {
+                return new long[4];
+            }
+        });
+
+        for (int t : threads) {
+            engines.add(batchEngine("NoviceBatch-" + t, new BatchPalindromeFinder(PalindromeFinder.priority(),
+                    new ForkJoinPool(t), BatchPalindromeFinder.DEFAULT_CHUNK_CHARS)));
+        }
+
+        for (int window : WINDOWS) {
+            engines.add(slidingEngine(window));
+        }
+
+        // Keystrokes in the middle of the input: type 500 characters, then
+        // backspace over them, querying after every edit. Compare with one
+        // full pass per keystroke (ManacherFinder times 1000).
+        engines.add(new Engine("DocumentEdits") {
+            private PalindromeDocument document;
+            private String typed;
+
+            void setUp(String s) {
+                document = new PalindromeDocument(s);
+                typed = s.length() > 1000 ? s.substring(0, 500) : "abcdefghij".repeat(50);
+            }
+
+            long run(String s) {
+                int cursor = document.length() / 2;
+                long sum = 0;
+                for (int i = 0; i < typed.length(); i++) {
+                    document.insert(cursor++, typed.substring(i, i + 1));
+                    sum += document.longest();
+                }
+                for (int i = 0; i < typed.length(); i++) {
+                    document.delete(--cursor, 1);
+                    sum += document.longest();
+                }
+                return sum;
+            }
+
+            String result(String s) {
+                run(s);
+                return document.longestPalindrome();
+            }
+
+            long[] counters(String s) {
+                return new long[4];
+            }
+        });
+
+        return engines;
+    }
+
+    /**
+     * A shared {@link PalindromeFinder} over a char[] copy of the input.
+     * Pairs of these with and without stats show what instrumentation costs.
+     */
+    static Engine finderEngine(String name, PalindromeFinder finder, boolean withStats) {
+        return new Engine(name) {
+            private char[] chars;
+
+            void setUp(String s) {
+                chars = s.toCharArray();
+            }
+
+            long run(String s) {
+                if (withStats) {
+                    return finder.findWithStats(chars, 0, chars.length).getRange();
+                }
+                return finder.find(chars, 0, chars.length);
+            }
+
+            String result(String s) {
+                long range = finder.find(chars, 0, chars.length);
+                return s.substring(PalindromeRange.start(range), PalindromeRange.end(range));
+            }
+
+            long[] counters(String s) {
+                return PerfBenchmark.counters(finder.findWithStats(chars, 0, chars.length));
+            }
+        };
+    }
+
+    /**
+     * A shared {@link PalindromeFinder} over a Latin-1 byte[] copy of the
+     * input.
+     */
+    static Engine bytesEngine(String name, PalindromeFinder finder) {
+        return new Engine(name) {
+            private byte[] bytes;
+
+            void setUp(String s) {
+                bytes = s.getBytes(StandardCharsets.ISO_8859_1);
+            }
+
+            long run(String s) {
+                return finder.find(bytes, 0, bytes.length);
+            }
+
+            String result(String s) {
+                long range = run(s);
+                return s.substring(PalindromeRange.start(range), PalindromeRange.end(range));
+            }
+
+            long[] counters(String s) {
+                return PerfBenchmark.counters(finder.findWithStats(bytes, 0, bytes.length));
+            }
+        };
+    }
+
+    /**
+     * Splits s into consecutive pieces of 10 to 500 characters, the string
+     * sizes of batch traffic.
+     */
+    static List<String> pieces(String s) {
+        Random random = new Random(s.length());
+        List<String> pieces = new ArrayList<>();
+        for (int from = 0; from < s.length();) {
+            int to = Math.min(s.length(), from + 10 + random.nextInt(491));
+            pieces.add(s.substring(from, to));
+            from = to;
+        }
+        return pieces;
+    }
+
+    /**
+     * A {@link BatchPalindromeFinder} over the {@link #pieces} of the input,
+     * packed into one char[] outside of timing.
+     */
+    static Engine batchEngine(String name, BatchPalindromeFinder batch) {
+        return new Engine(name) {
+            private char[] chars;
+            private int[] bounds;
+            private int[] results;
+
+            void setUp(String s) {
+                List<String> pieces = pieces(s);
+                chars = s.toCharArray();
+                bounds = new int[pieces.size() + 1];
+                for (int i = 0; i < pieces.size(); i++) {
+                    bounds[i + 1] = bounds[i] + pieces.get(i).length();
+                }
+                results = new int[2 * pieces.size()];
+            }
+
+            long run(String s) {
+                batch.longestPalindromes(chars, bounds, results);
+                return results.length == 0 ? 0 : results[1];
+            }
+
+            String result(String s) {
+                run(s);
+                int best = 0;
+                for (int i = 1; i < bounds.length - 1; i++) {
+                    if (results[2 * i + 1] > results[2 * best + 1]) {
+                        best = i;
+                    }
+                }
+                if (results.length == 0) {
+                    return "";
+                }
+                int start = bounds[best] + results[2 * best];
+                return s.substring(start, start + results[2 * best + 1]);
+            }
+
+            long[] counters(String s) {
+                return new long[4];
+            }
+        };
+    }
+
+    /**
+     * The input as an event stream through a
+     * {@link SlidingWindowPalindromeFinder}: one append and one query per
+     * character, so time per operation divided by the size is the cost per
+     * event.
+     */
+    static Engine slidingEngine(int window) {
+        return new Engine("SlidingWindow-" + window) {
+            private SlidingWindowPalindromeFinder finder;
+
+            void setUp(String s) {
+                if (finder == null) {
+                    finder = new SlidingWindowPalindromeFinder(window);
+                }
+            }
+
+            long run(String s) {
+                finder.reset();
+                long sum = 0;
+                for (int i = 0; i < s.length(); i++) {
+                    finder.append(s.charAt(i));
+                    sum += finder.currentLongestLength();
+                }
+                return sum;
+            }
+
+            String result(String s) {
+                run(s);
+                return finder.currentLongest();
+            }
+
+            long[] counters(String s) {
+                return new long[4];
+            }
+        };
+    }
+
+    /**
+     * The four CSV counter columns for stats, in benchmark_results.csv order:
+     * the priority search reports position checks and early terminations,
+     * Manacher reports mirror copies and expansion attempts.
+     */
+    static long[] counters(PalindromeStats stats) {
+        if (stats.getMirrorCopies() > 0 || stats.getExpansionAttempts() > 0) {
+            return new long[] { stats.getComparisonCount(), stats.getOuterLoopCount(), stats.getMirrorCopies(),
+                    stats.getExpansionAttempts() };
+        }
+        return new long[] { stats.getComparisonCount(), stats.getOuterLoopCount(), stats.getPositionChecks(),
+                stats.getEarlyTerminations() };
+    }
+
+    public static void main(String[] args) throws IOException {
+        List<String> engineFilter = null;
+        String[] families = FAMILIES;
+        int[] sizes = SIZES;
+        int[] threads = { 1, 2, 4, 8, 16, 32 };
+        String mode = "all";
+        int warmup = 5;
+        int iterations = 5;
+        long iterationMs = 1000;
+        boolean profGc = false;
+        String csvPath = "output/perf_results.csv";
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--engines":
+                    engineFilter = Arrays.asList(args[++i].split(","));
+                    break;
+                case "--families":
+                    families = args[++i].split(",");
+                    break;
+                case "--sizes":
+                    sizes = Arrays.stream(args[++i].split(",")).mapToInt(Integer::parseInt).toArray();
+                    break;
+                case "--threads":
+                    threads = Arrays.stream(args[++i].split(",")).mapToInt(Integer::parseInt).toArray();
+                    break;
+                case "--mode":
+                    mode = args[++i];
+                    break;
+                case "--warmup":
+                    warmup = Integer.parseInt(args[++i]);
+                    break;
+                case "--iterations":
+                    iterations = Integer.parseInt(args[++i]);
+                    break;
+                case "--iteration-ms":
+                    iterationMs = Long.parseLong(args[++i]);
+                    break;
+                case "--prof":
+                    profGc = "gc".equals(args[++i]);
+                    break;
+                case "--csv":
+                    csvPath = args[++i];
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        File csvFile = new File(csvPath);
+        if (csvFile.getParentFile() != null && !csvFile.getParentFile().exists()) {
+            csvFile.getParentFile().mkdirs();
+        }
+
+        List<Engine> engines = engines(threads);
+
+        try (PrintWriter csv = new PrintWriter(new FileWriter(csvFile))) {
+            csv.println(
+                    "algorithm,original_length,transformed_length,total_comparisons,outer_loop_count,position_checks,early_terminations,palindrome_length,time_ms,input_string,result_palindrome");
+
+            System.out.printf("%-20s %-15s %10s %6s %14s %14s %14s %10s%n",
+                    "Engine", "Family", "Size", "Mode", "Score", "Error", "Units", "gc.count");
+
+            for (String family : families) {
+                for (int size : sizes) {
+                    String input = generate(family, size, 42L);
+
+                    for (Engine engine : engines) {
+                        if (engineFilter != null && !engineFilter.contains(engine.name)) {
+                            continue;
+                        }
+
+                        engine.setUp(input);
+                        Result r = measure(engine, input, warmup, iterations, iterationMs);
+
+                        if (mode.equals("avgt") || mode.equals("all")) {
+                            report(engine.name, family, size, "avgt", r.avgNsPerOp / 1_000_000.0,
+                                    r.avgNsErr / 1_000_000.0, "ms/op", r, profGc);
+                        }
+                        if (mode.equals("thrpt") || mode.equals("all")) {
+                            report(engine.name, family, size, "thrpt", r.opsPerSec, r.opsPerSecErr, "ops/s", r,
+                                    profGc);
+                        }
+
+                        long[] c = engine.counters(input);
+                        String ans = engine.result(input);
+                        csv.printf("\"%s\",%d,%d,%d,%d,%d,%d,%d,%.6f,\"%s\",\"%s\"%n",
+                                engine.name, size, Solution.getTransformedLength(size), c[0], c[1], c[2], c[3],
+                                ans.length(), r.avgNsPerOp / 1_000_000.0,
+                                formatForCSV(family + ":" + input, 100), formatForCSV(ans, 100));
+                        csv.flush();
+                    }
+                }
+            }
+        }
+
+        System.out.println();
+        System.out.println("Results written to " + csvPath);
+    }
+
+    private static void report(String engine, String family, int size, String mode, double score, double error,
+            String units, Result r, boolean profGc) {
+        System.out.printf("%-20s %-15s %10d %6s %14.4f %14.4f %14s %10s%n",
+                engine, family, size, mode, score, error, units, profGc ? Long.toString(r.gcCount) : "-");
+        if (profGc) {
+            System.out.printf("%-20s %-15s %10d %6s %14.1f %14s %14s%n",
+                    engine, family, size, mode, r.allocBytesPerOp, "", "B/op (alloc)");
+        }
+    }
+
+    static final class Result {
+        double avgNsPerOp;
+        double avgNsErr;
+        double opsPerSec;
+        double opsPerSecErr;
+        double allocBytesPerOp;
+        long gcCount;
+    }
+
+    /**
+     * Runs warm-up and measurement iterations of engine over input. Each
+     * iteration repeats the operation until iterationMs has elapsed, so even
+     * sub-microsecond calls are timed over many operations.
+     */
+    static Result measure(Engine engine, String input, int warmup, int iterations, long iterationMs) {
+        for (int w = 0; w < warmup; w++) {
+            runIteration(engine, input, iterationMs);
+        }
+
+        System.gc();
+
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long gcBefore = gcCount();
+        long allocBefore = threads.getThreadAllocatedBytes(threadId);
+
+        double[] nsPerOp = new double[iterations];
+        long totalOps = 0;
+        for (int it = 0; it < iterations; it++) {
+            long[] opsAndNs = runIteration(engine, input, iterationMs);
+            totalOps += opsAndNs[0];
+            nsPerOp[it] = (double) opsAndNs[1] / opsAndNs[0];
+        }
+
+        long allocAfter = threads.getThreadAllocatedBytes(threadId);
+        long gcAfter = gcCount();
+
+        Result r = new Result();
+        double[] opsPerSec = new double[iterations];
+        for (int it = 0; it < iterations; it++) {
+            opsPerSec[it] = 1_000_000_000.0 / nsPerOp[it];
+        }
+        r.avgNsPerOp = mean(nsPerOp);
+        r.avgNsErr = stdDev(nsPerOp);
+        r.opsPerSec = mean(opsPerSec);
+        r.opsPerSecErr = stdDev(opsPerSec);
+        r.allocBytesPerOp = (double) (allocAfter - allocBefore) / totalOps;
+        r.gcCount = gcAfter - gcBefore;
+        return r;
+    }
+
+    private static long[] runIteration(Engine engine, String input, long iterationMs) {
+        long deadline = System.nanoTime() + iterationMs * 1_000_000L;
+        long ops = 0;
+        long sink = 0;
+        long start = System.nanoTime();
+        long now;
+        do {
+            sink += engine.run(input);
+            ops++;
+            now = System.nanoTime();
+        } while (now < deadline);
+        blackhole += sink;
+        return new long[] { ops, now - start };
+    }
+
+    private static long gcCount() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            long count = gc.getCollectionCount();
+            if (count > 0) {
+                total += count;
+            }
+        }
+        return total;
+    }
+
+    private static double mean(double[] values) {
+        double sum = 0;
+        for (double v : values) {
+            sum += v;
+        }
+        return sum / values.length;
+    }
+
+    private static double stdDev(double[] values) {
+        if (values.length < 2) {
+            return 0;
+        }
+        double m = mean(values);
+        double sum = 0;
+        for (double v : values) {
+            sum += (v - m) * (v - m);
+        }
+        return Math.sqrt(sum / (values.length - 1));
+    }
+
+    /**
+     * Builds a deterministic input of the given family and length.
+     */
+    static String generate(String family, int n, long seed) {
+        Random r = new Random(seed);
+        char[] chars = new char[n];
+        switch (family) {
+            case "random2":
+                fillRandom(chars, r, 'a', 2);
+                break;
+            case "random4":
+                fillRandom(chars, r, 'a', 4);
+                break;
+            case "random26":
+                fillRandom(chars, r, 'a', 26);
+                break;
+            case "random65536":
+                fillRandom(chars, r, 0, 65536);
+                break;
+            case "allSame":
+                Arrays.fill(chars, 'a');
+                break;
+            case "threeBlocks": {
+                // a^(n/3) b^(n/3) c^(n/3), as in WorstCaseTest
+                int blockSize = n / 3;
+                Arrays.fill(chars, 0, blockSize, 'a');
+                Arrays.fill(chars, blockSize, 2 * blockSize, 'b');
+                Arrays.fill(chars, 2 * blockSize, n, 'c');
+                break;
+            }
+            case "nearPalindrome": {
+                // A full-length palindrome with roughly one mutation per 1000 chars
+                for (int i = 0; i < (n + 1) / 2; i++) {
+                    chars[i] = chars[n - 1 - i] = (char) ('a' + r.nextInt(26));
+                }
+                for (int k = 0; k < n / 1000 + 1 && n > 0; k++) {
+                    chars[r.nextInt(n)] = (char) ('a' + r.nextInt(26));
+                }
+                break;
+            }
+            case "sentences": {
+                // Mixed-case words of 1 to 8 letters from a 4-letter alphabet,
+                // with spaces and punctuation: text for sentence palindromes
+                String separators = "     ,.;!?-'";
+                int i = 0;
+                while (i < n) {
+                    int word = 1 + r.nextInt(8);
+                    for (int k = 0; k < word && i < n; k++) {
+                        char c = (char) ('a' + r.nextInt(4));
+                        chars[i++] = r.nextInt(8) == 0 ? Character.toUpperCase(c) : c;
+                    }
+                    if (i < n) {
+                        chars[i++] = separators.charAt(r.nextInt(separators.length()));
+                    }
+                }
+                break;
+            }
+            default:
+                throw new IllegalArgumentException("Unknown family: " + family);
+        }
+        return new String(chars);
+    }
+
+    private static void fillRandom(char[] chars, Random r, int base, int alphabet) {
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = (char) (base + r.nextInt(alphabet));
+        }
+    }
+
+    /**
+     * Format string for CSV output - escape quotes and truncate if needed
+     */
+    private static String formatForCSV(String s, int maxLength) {
+        if (s == null || s.isEmpty()) {
+            return "";
+        }
+
+        String result = s.length() <= maxLength ? s : s.substring(0, maxLength - 3) + "...";
+        return result.replace("\"", "\"\"");
+    }
+}
@@ -0,0 +1,58 @@
+import java.util.Objects;
+
+/**
+ * Stateless, thread-safe form of the priority search in {@link Solution}.
+ */
+public final class PriorityPalindromeFinder implements PalindromeFinder {
+
+    static final PriorityPalindromeFinder INSTANCE = new PriorityPalindromeFinder();
+
+    public static final String NAME = "Novice";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public long find(CharSequence s, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, s.length());
+        return Solution.traced(s, offset, length, null);
+    }
+
+    @Override
+    public long find(char[] s, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, s.length);
+        return Solution.traced(s, offset, length, null);
+    }
+
+    @Override
+    public long find(byte[] s, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, s.length);
+        return Solution.traced(s, offset, length, null);
+    }
+
+    @Override
+    public PalindromeStats findWithStats(CharSequence s, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, s.length());
+        return stats(s, offset, length);
+    }
+
+    @Override
+    public PalindromeStats findWithStats(char[] s, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, s.length);
+        return stats(s, offset, length);
+    }
+
+    @Override
+    public PalindromeStats findWithStats(byte[] s, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, s.length);
+        return stats(s, offset, length);
+    }
+
+    private static PalindromeStats stats(Object src, int offset, int length) {
+        long[] counters = new long[PalindromeStats.COUNTERS];
+        long range = Solution.traced(src, offset, length, counters);
+        return new PalindromeStats(NAME, range, counters);
+    }
+}
@@ -0,0 +1,263 @@
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Longest palindrome of inputs made of long runs of one character, such as
+ * WorstCaseTest's ThreeBlocks or homopolymer-heavy sequence data, in time
+ * proportional to the number of runs.
+ *
+ * The input is first encoded as runs: the character of each run and where
+ * it starts, in the workspace's int buffer. Adjacent runs differ, so the
+ * longest palindrome is centered on the middle of some run (one centered
+ * anywhere else stays inside its run, shorter than the run itself). Around
+ * run j, whole runs match their mirror when both character and length
+ * agree: that is Manacher's algorithm over the run sequence, with a run as
+ * one symbol. Where the match stops, the next two runs still add
+ * min(length, length) characters each if their characters agree.
+ *
+ * Encoding reads every character once; the search then costs O(runs).
+ * Results are exactly Mancher's, including which palindrome is returned
+ * among several of the longest length (the leftmost). In the counters,
+ * comparisons include the n - 1 made while encoding, and outer loops and
+ * expansion attempts are per run.
+ *
+ * Stateless and thread-safe; scratch space comes from the calling
+ * thread's {@link PalindromeWorkspace}.
+ */
+public final class RunLengthPalindromeFinder implements PalindromeFinder {
+
+    public static final String NAME = "RunLength";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public long find(CharSequence s, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, s.length());
+        return traced(s, offset, length, null);
+    }
+
+    @Override
+    public long find(char[] s, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, s.length);
+        return traced(s, offset, length, null);
+    }
+
+    @Override
+    public long find(byte[] s, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, s.length);
+        return traced(s, offset, length, null);
+    }
+
+    @Override
+    public PalindromeStats findWithStats(CharSequence s, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, s.length());
+        return stats(s, offset, length);
+    }
+
+    @Override
+    public PalindromeStats findWithStats(char[] s, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, s.length);
+        return stats(s, offset, length);
+    }
+
+    @Override
+    public PalindromeStats findWithStats(byte[] s, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, s.length);
+        return stats(s, offset, length);
+    }
+
+    private static PalindromeStats stats(Object src, int offset, int length) {
+        long[] counters = new long[PalindromeStats.COUNTERS];
+        long range = traced(src, offset, length, counters);
+        return new PalindromeStats(NAME, range, counters);
+    }
+
+    /**
+     * {@link #search}, as a {@link PalindromeEvents.Search} event with one
+     * runLength phase when enabled.
+     */
+    private static long traced(Object src, int offset, int length, long[] counters) {
+        PalindromeEvents.Trace trace = PalindromeEvents.trace(NAME, length, 1);
+        if (!trace.isOn()) {
+            return search(src, offset, length, null, counters);
+        }
+        if (counters == null) {
+            counters = new long[PalindromeStats.COUNTERS];
+        }
+        trace.begin("runLength");
+        long range = search(src, offset, length, null, counters);
+        trace.end(counters);
+        trace.finish(range, counters, NAME, PalindromeEvents.RUNS);
+        return range;
+    }
+
+    /**
+     * Number of runs in src[offset, offset + length), counting no further
+     * than limit + 1, so a caller deciding whether runs are few stops early
+     * on text where they are not.
+     */
+    static int countRuns(Object src, int offset, int length, int limit) {
+        return runs(src, offset, length, limit, null, 0);
+    }
+
+    /**
+     * The search itself, shared with {@link PalindromeEngine}. Counters are
+     * only written when the caller passes an array for them (reset here).
+     *
+     * @param workspace scratch for the runs, or null for the calling
+     *                  thread's workspace
+     */
+    static long search(Object src, int offset, int length, PalindromeWorkspace workspace, long[] counters) {
+        if (counters != null) {
+            Arrays.fill(counters, 0L);
+        }
+        if (length <= 1) {
+            return PalindromeRange.of(offset, length);
+        }
+
+        PalindromeWorkspace ws = (workspace != null) ? workspace : PalindromeWorkspace.current();
+        int m = countRuns(src, offset, length, length);
+
+        // One int buffer: ints[j] is where run j begins (ints[m] == length),
+        // then the run characters, then the radii. The char buffer stays
+        // free for callers such as BatchPalindromeFinder that pack input
+        // there.
+        int[] ints = ws.ints(3 * m + 1);
+        int chars = m + 1;
+        int radii = 2 * m + 1;
+        runs(src, offset, length, m, ints, chars);
+        ints[m] = length;
+
+        int center = 0;
+        int right = 0;
+
+        int bestStart = 0;
+        int bestLength = 0;
+
+        long expansions = 0;
+
+        for (int i = 0; i < m; i++) {
+            // Radius in whole runs, as in Mancher but over runs
+            int k = 0;
+            if (i < right) {
+                k = Math.min(ints[radii + 2 * center - i], right - i);
+                if (counters != null) {
+                    counters[PalindromeStats.MIRROR_COPIES]++;
+                }
+            }
+            while (i - k > 0 && i + k + 1 < m) {
+                int l = i - k - 1;
+                int r = i + k + 1;
+                expansions++;
+                if (ints[chars + l] != ints[chars + r] || ints[l + 1] - ints[l] != ints[r + 1] - ints[r]) {
+                    break;
+                }
+                k++;
+            }
+            ints[radii + i] = k;
+            if (i + k > right) {
+                center = i;
+                right = i + k;
+            }
+
+            // Whole runs i - k .. i + k, then whatever the next two share
+            int start = ints[i - k];
+            int end = ints[i + k + 1];
+            if (i - k > 0 && i + k + 1 < m && ints[chars + i - k - 1] == ints[chars + i + k + 1]) {
+                int extra = Math.min(start - ints[i - k - 1], ints[i + k + 2] - end);
+                start -= extra;
+                end += extra;
+            }
+            if (end - start > bestLength) {
+                bestStart = start;
+                bestLength = end - start;
+            }
+        }
+
+        ws.release();
+
+        if (counters != null) {
+            counters[PalindromeStats.OUTER_LOOPS] = m;
+            counters[PalindromeStats.EXPANSION_ATTEMPTS] = expansions;
+            counters[PalindromeStats.COMPARISONS] = expansions + length - 1;
+        }
+        return PalindromeRange.of(offset + bestStart, bestLength);
+    }
+
+    /**
+     * Counts runs, at most limit + 1 of them, and when ints is non-null
+     * also stores each run's start (relative to offset) at ints[j] and its
+     * character at ints[chars + j].
+     */
+    private static int runs(Object src, int offset, int length, int limit, int[] ints, int chars) {
+        if (src instanceof byte[]) {
+            return runs((byte[]) src, offset, length, limit, ints, chars);
+        } else if (src instanceof char[]) {
+            return runs((char[]) src, offset, length, limit, ints, chars);
+        }
+        return runs((CharSequence) src, offset, length, limit, ints, chars);
+    }
+
+    private static int runs(byte[] s, int offset, int length, int limit, int[] ints, int chars) {
+        int m = 0;
+        int previous = -1;
+        for (int i = 0; i < length; i++) {
+            int c = s[offset + i] & 0xFF;
+            if (c != previous) {
+                if (m == limit + 1) {
+                    return m;
+                }
+                if (ints != null) {
+                    ints[m] = i;
+                    ints[chars + m] = c;
+                }
+                m++;
+                previous = c;
+            }
+        }
+        return m;
+    }
+
+    private static int runs(char[] s, int offset, int length, int limit, int[] ints, int chars) {
+        int m = 0;
+        int previous = -1;
+        for (int i = 0; i < length; i++) {
+            int c = s[offset + i];
+            if (c != previous) {
+                if (m == limit + 1) {
+                    return m;
+                }
+                if (ints != null) {
+                    ints[m] = i;
+                    ints[chars + m] = c;
+                }
+                m++;
+                previous = c;
+            }
+        }
+        return m;
+    }
+
+    private static int runs(CharSequence s, int offset, int length, int limit, int[] ints, int chars) {
+        int m = 0;
+        int previous = -1;
+        for (int i = 0; i < length; i++) {
+            int c = s.charAt(offset + i);
+            if (c != previous) {
+                if (m == limit + 1) {
+                    return m;
+                }
+                if (ints != null) {
+                    ints[m] = i;
+                    ints[chars + m] = c;
+                }
+                m++;
+                previous = c;
+            }
+        }
+        return m;
+    }
+}
@@ -0,0 +1,114 @@
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+public class RunLengthTest {
+
+    private static int failures = 0;
+
+    public static void main(String[] args) {
+        System.out.println("Testing RunLengthPalindromeFinder on run-heavy inputs");
+        System.out.println();
+        testThreeBlocks();
+        System.out.println("\n\n");
+        testRandomExactness();
+
+        System.out.println();
+        if (failures > 0) {
+            System.out.println("FAILED: " + failures + " check(s) ⚠️");
+            System.exit(1);
+        }
+        System.out.println("All checks passed ✓");
+    }
+
+    /**
+     * ThreeBlocks has three runs at any size: after the encoding pass, the
+     * search makes a constant number of comparisons while Manacher's grow
+     * with n.
+     */
+    public static void testThreeBlocks() {
+        RunLengthPalindromeFinder finder = new RunLengthPalindromeFinder();
+
+        System.out.println("========================================");
+        System.out.println("RUN-LENGTH vs MANACHER: ThreeBlocks (a^n b^n c^n)");
+        System.out.println("========================================");
+        System.out.println();
+
+        int[] sizes = { 100, 1000, 10000, 100000, 1000000 };
+
+        System.out.printf("%-12s %-18s %-18s %-15s%n",
+                "Input Size", "Manacher cmp", "Run comparisons", "Length");
+        System.out.println("-----------------------------------------------------------------");
+
+        for (int n : sizes) {
+            String test = AdversarialInputs.generate("threeBlocks", n, 42);
+
+            PalindromeStats manacher = PalindromeFinder.manacher().findWithStats(test, 0, n);
+            PalindromeStats stats = finder.findWithStats(test, 0, n);
+
+            System.out.printf("%-12d %-18d %-18d %-15d", n, manacher.getComparisonCount(),
+                    stats.getExpansionAttempts(), stats.getLength());
+
+            if (stats.getRange() != manacher.getRange()) {
+                System.out.print(" ⚠️  DIFFERS FROM MANACHER");
+                failures++;
+            } else if (stats.getExpansionAttempts() > 3) {
+                System.out.print(" ⚠️  NOT O(runs)");
+                failures++;
+            } else {
+                System.out.print(" ✓");
+            }
+            System.out.println();
+        }
+    }
+
+    /**
+     * Same range as Manacher, start included, on random run-heavy inputs
+     * given as String, char[] and byte[] at an offset.
+     */
+    public static void testRandomExactness() {
+        System.out.println("========================================");
+        System.out.println("RUN-LENGTH: exactness on random inputs");
+        System.out.println("========================================");
+        System.out.println();
+
+        RunLengthPalindromeFinder finder = new RunLengthPalindromeFinder();
+        Random random = new Random(19);
+        int trials = 20000;
+        int wrong = 0;
+
+        for (int t = 0; t < trials; t++) {
+            int n = random.nextInt(300);
+            StringBuilder sb = new StringBuilder();
+            int alphabet = 1 + random.nextInt(3);
+            int maxRun = 1 + random.nextInt(1 + random.nextInt(20));
+            while (sb.length() < n) {
+                char c = (char) ('a' + random.nextInt(alphabet));
+                int run = 1 + random.nextInt(maxRun);
+                for (int k = 0; k < run && sb.length() < n; k++) {
+                    sb.append(c);
+                }
+            }
+            String test = sb.toString();
+            int offset = random.nextInt(3);
+            String padded = "xyz".substring(0, offset) + test;
+
+            long expected = PalindromeFinder.manacher().find(padded, offset, n);
+            if (finder.find(padded, offset, n) != expected
+                    || finder.find(padded.toCharArray(), offset, n) != expected
+                    || finder.find(padded.getBytes(StandardCharsets.ISO_8859_1), offset, n) != expected) {
+                wrong++;
+            }
+        }
+
+        System.out.printf("%-15s %-15s%n", "Trials", "Wrong");
+        System.out.println("------------------------------");
+        System.out.printf("%-15d %-15d", trials, wrong);
+        if (wrong > 0) {
+            System.out.print(" ⚠️");
+            failures++;
+        } else {
+            System.out.print(" ✓");
+        }
+        System.out.println();
+    }
+}
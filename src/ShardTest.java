@@ -0,0 +1,148 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+public class ShardTest {
+
+    private static int failures = 0;
+
+    public static void main(String[] args) throws IOException {
+        System.out.println("Testing ShardedPalindromeFinder against the in-process Manacher");
+        System.out.println();
+        testFamilies();
+        System.out.println("\n\n");
+        testRandomSeams();
+
+        System.out.println();
+        if (failures > 0) {
+            System.out.println("FAILED: " + failures + " check(s) ⚠️");
+            System.exit(1);
+        }
+        System.out.println("All checks passed ✓");
+    }
+
+    /**
+     * Every benchmark and adversarial family, cut into many shards, with
+     * and without overlap. allSame and nearPalindrome have palindromes
+     * spanning every seam.
+     */
+    public static void testFamilies() throws IOException {
+        System.out.println("========================================");
+        System.out.println("SHARDED vs MANACHER: input families");
+        System.out.println("========================================");
+        System.out.println();
+
+        int n = 50_000;
+        ShardedPalindromeFinder[] finders = {
+                new ShardedPalindromeFinder(2, 4096, 64),
+                new ShardedPalindromeFinder(2, 1000, 0),
+        };
+
+        System.out.printf("%-18s %-8s %-8s %-10s %-10s %-10s%n",
+                "Family", "Shards", "Overlap", "Touching", "Expanded", "Length");
+        System.out.println("-----------------------------------------------------------------");
+
+        Path file = Files.createTempFile("shard-test", ".txt");
+        try {
+            for (String[] families : new String[][] { PerfBenchmark.FAMILIES, AdversarialInputs.FAMILIES }) {
+                for (String family : families) {
+                    String text = (families == PerfBenchmark.FAMILIES) ? PerfBenchmark.generate(family, n, 42)
+                            : AdversarialInputs.generate(family, n, 42);
+                    byte[] bytes = text.getBytes(StandardCharsets.ISO_8859_1);
+                    Files.write(file, bytes);
+                    long expected = PalindromeFinder.manacher().find(bytes, 0, bytes.length);
+
+                    for (ShardedPalindromeFinder finder : finders) {
+                        ShardedPalindromeFinder.Result result = finder.find(file);
+                        System.out.printf("%-18s %-8d %-8d %-10d %-10d %-10d", family, result.getShards(),
+                                finder.getOverlap(), result.getTouchingCenters(), result.getExpandedCenters(),
+                                result.getLength());
+                        check(result, expected);
+                    }
+                }
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Small run-heavy or periodic files with random shard sizes and
+     * overlaps, so that seams fall on every kind of position; the start
+     * must match too.
+     */
+    public static void testRandomSeams() throws IOException {
+        System.out.println("========================================");
+        System.out.println("SHARDED: exactness on random seams");
+        System.out.println("========================================");
+        System.out.println();
+
+        Random random = new Random(23);
+        int trials = 80;
+        int wrong = 0;
+
+        Path file = Files.createTempFile("shard-test", ".txt");
+        try {
+            for (int t = 0; t < trials; t++) {
+                int n = 1 + random.nextInt(3000);
+                byte[] bytes = new byte[n];
+                int alphabet = 1 + random.nextInt(3);
+                if (t % 2 == 0) {
+                    int maxRun = 1 + random.nextInt(1 + random.nextInt(40));
+                    for (int i = 0; i < n;) {
+                        byte c = (byte) ('a' + random.nextInt(alphabet));
+                        for (int run = 1 + random.nextInt(maxRun); run > 0 && i < n; run--) {
+                            bytes[i++] = c;
+                        }
+                    }
+                } else {
+                    // A short word repeated, with a few bytes changed
+                    byte[] word = new byte[1 + random.nextInt(6)];
+                    for (int i = 0; i < word.length; i++) {
+                        word[i] = (byte) ('a' + random.nextInt(alphabet));
+                    }
+                    for (int i = 0; i < n; i++) {
+                        bytes[i] = (random.nextInt(200) == 0) ? (byte) ('a' + random.nextInt(alphabet))
+                                : word[i % word.length];
+                    }
+                }
+                Files.write(file, bytes);
+
+                ShardedPalindromeFinder finder = new ShardedPalindromeFinder(1 + random.nextInt(2),
+                        1 + random.nextInt(500), random.nextInt(50));
+                ShardedPalindromeFinder.Result result = finder.find(file);
+                long expected = PalindromeFinder.manacher().find(bytes, 0, n);
+                if (result.getStart() != PalindromeRange.start(expected)
+                        || result.getLength() != PalindromeRange.length(expected)) {
+                    wrong++;
+                }
+            }
+        } finally {
+            Files.delete(file);
+        }
+
+        System.out.printf("%-15s %-15s%n", "Trials", "Wrong");
+        System.out.println("------------------------------");
+        System.out.printf("%-15d %-15d", trials, wrong);
+        if (wrong > 0) {
+            System.out.print(" ⚠️");
+            failures++;
+        } else {
+            System.out.print(" ✓");
+        }
+        System.out.println();
+    }
+
+    private static void check(ShardedPalindromeFinder.Result result, long expected) {
+        if (result.getStart() != PalindromeRange.start(expected)
+                || result.getLength() != PalindromeRange.length(expected)) {
+            System.out.print(" ⚠️  DIFFERS FROM MANACHER");
+            failures++;
+        } else {
+            System.out.print(" ✓");
+        }
+        System.out.println();
+    }
+}
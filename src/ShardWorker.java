@@ -0,0 +1,161 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Worker process of {@link ShardedPalindromeFinder}. Reads commands from
+ * stdin and answers on stdout, both binary (DataInput/DataOutput), one
+ * shard at a time, until stdin is closed.
+ *
+ * OPEN path: the file the following shards are read from.
+ *
+ * SHARD windowFrom windowTo coreFrom coreTo fileLength: reads the window's
+ * bytes from the file and runs the {@link Mancher} radius pass over them.
+ * For the centers of the core, in global transformed indexes, it answers
+ * with the best center whose radius is exact (-1 if none) and its radius,
+ * then the touching centers, whose palindrome ran into a window edge that
+ * is not a file edge. Those are the palindromic prefixes and suffixes of
+ * the window, which fall into O(log window) arithmetic progressions, and
+ * are sent as (first, step, count) runs; a run holds prefixes only or
+ * suffixes only.
+ *
+ * Memory is the window's bytes plus its 2 * window + 1 radii, reused from
+ * shard to shard.
+ */
+final class ShardWorker {
+
+    static final byte OPEN = 1;
+    static final byte SHARD = 2;
+
+    private byte[] bytes = new byte[0];
+    private int[] radii = new int[0];
+
+    // Touching centers as (first, step, count) triples
+    private long[] runs = new long[3 * 16];
+    private int runCount;
+    private boolean lastLeft;
+
+    private ShardWorker() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(System.in));
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(System.out));
+        ShardWorker worker = new ShardWorker();
+        FileChannel channel = null;
+        try {
+            while (true) {
+                byte command;
+                try {
+                    command = in.readByte();
+                } catch (EOFException e) {
+                    break;
+                }
+                if (command == OPEN) {
+                    if (channel != null) {
+                        channel.close();
+                    }
+                    channel = FileChannel.open(Paths.get(in.readUTF()), StandardOpenOption.READ);
+                } else if (command == SHARD) {
+                    if (channel == null) {
+                        throw new IOException("SHARD before OPEN");
+                    }
+                    worker.shard(channel, in.readLong(), in.readLong(), in.readLong(), in.readLong(), in.readLong(),
+                            out);
+                    out.flush();
+                } else {
+                    throw new IOException("Unknown command: " + command);
+                }
+            }
+        } finally {
+            if (channel != null) {
+                channel.close();
+            }
+        }
+    }
+
+    private void shard(FileChannel channel, long windowFrom, long windowTo, long coreFrom, long coreTo,
+            long fileLength, DataOutputStream out) throws IOException {
+        int w = (int) (windowTo - windowFrom);
+        if (bytes.length < w) {
+            bytes = new byte[w];
+            radii = new int[2 * w + 1];
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, w);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, windowFrom + buffer.position()) < 0) {
+                throw new EOFException("File shorter than " + windowTo + " bytes");
+            }
+        }
+
+        Mancher.search(bytes, 0, w, radii, null, null);
+
+        int n = 2 * w + 1;
+        long base = 2 * windowFrom;
+        long last = 2 * fileLength;
+        int from = (int) (2 * (coreFrom - windowFrom));
+        int to = (coreTo == fileLength) ? n : (int) (2 * (coreTo - windowFrom));
+
+        long bestCenter = -1;
+        int bestRadius = -1;
+        runCount = 0;
+        for (int i = from; i < to; i++) {
+            int radius = radii[i];
+            int window = Math.min(i, n - 1 - i);
+            long g = base + i;
+            if (radius == window && window < Math.min(g, last - g)) {
+                touching(g, i <= n - 1 - i);
+            } else if (radius > bestRadius) {
+                bestRadius = radius;
+                bestCenter = g;
+            }
+        }
+
+        out.writeLong(bestCenter);
+        out.writeInt(bestRadius);
+        out.writeInt(runCount);
+        for (int k = 0; k < 3 * runCount; k++) {
+            out.writeLong(runs[k]);
+        }
+    }
+
+    /**
+     * Adds center g, in increasing order, extending the last run when it
+     * keeps its step and its edge.
+     *
+     * @param left whether the palindrome reached the window's left edge
+     *             (both, for the middle center) rather than its right one
+     */
+    private void touching(long g, boolean left) {
+        if (runCount > 0 && left == lastLeft) {
+            int k = 3 * (runCount - 1);
+            long count = runs[k + 2];
+            long lastCenter = runs[k] + (count - 1) * runs[k + 1];
+            if (count == 1) {
+                runs[k + 1] = g - lastCenter;
+                runs[k + 2] = 2;
+                return;
+            }
+            if (g - lastCenter == runs[k + 1]) {
+                runs[k + 2]++;
+                return;
+            }
+        }
+        if (3 * runCount + 3 > runs.length) {
+            runs = Arrays.copyOf(runs, 2 * runs.length);
+        }
+        int k = 3 * runCount++;
+        runs[k] = g;
+        runs[k + 1] = 1;
+        runs[k + 2] = 1;
+        lastLeft = left;
+    }
+}
@@ -0,0 +1,561 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Longest palindrome of a Latin-1 file too large for one JVM's radius
+ * arrays, computed by {@link ShardWorker} processes on the same machine.
+ * The result is exactly {@link Mancher}'s on the whole file, the leftmost
+ * of the longest included.
+ *
+ * The file is cut into shards of shardSize bytes. Each one is sent to a
+ * worker over its stdin as a window: the shard plus overlap bytes on either
+ * side. The worker reads the window from the file, runs the Manacher radius
+ * pass over it, and answers on stdout with two things for the centers of
+ * its shard: the best one whose radius is exact, and the touching ones,
+ * whose palindrome reached a window edge and may go on past it. These are
+ * the window's palindromic prefixes and suffixes, sent as a few arithmetic
+ * progressions, so the answer stays small even when every center touches
+ * (a file of one repeated byte). The overlap keeps centers near the seams
+ * exact unless their palindrome is longer than 2 * overlap.
+ *
+ * The seams are then resolved here, over the memory-mapped file. Each
+ * progression is resolved as a whole from how far its period continues
+ * past the window, with at most two members expanded byte by byte (see
+ * {@link Seams#resolve}). Progressions are taken in descending order of
+ * their best bestCase bound, as centers are in {@link Solution}, and the
+ * search stops once none can beat the best palindrome found, exact ones
+ * from the workers included.
+ *
+ * Worker heaps are capped at about 9 bytes per window byte (the window
+ * and its radii). The coordinator holds the runs of touching centers, one
+ * page-cache mapping of the file, and one pipe and thread per worker.
+ */
+public final class ShardedPalindromeFinder {
+
+    public static final String NAME = "ManacherSharded";
+
+    public static final long DEFAULT_SHARD_SIZE = 64L << 20;
+    public static final int DEFAULT_OVERLAP = 1 << 16;
+
+    // Radii of a window must fit in one int[]
+    private static final long MAX_WINDOW = (Integer.MAX_VALUE - 9) / 2;
+
+    private final int workers;
+    private final long shardSize;
+    private final int overlap;
+
+    /**
+     * One worker per core, default shard size and overlap.
+     */
+    public ShardedPalindromeFinder() {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_SHARD_SIZE, DEFAULT_OVERLAP);
+    }
+
+    public ShardedPalindromeFinder(int workers, long shardSize, int overlap) {
+        if (workers <= 0) {
+            throw new IllegalArgumentException("workers <= 0: " + workers);
+        }
+        if (shardSize <= 0) {
+            throw new IllegalArgumentException("shardSize <= 0: " + shardSize);
+        }
+        if (overlap < 0) {
+            throw new IllegalArgumentException("overlap < 0: " + overlap);
+        }
+        if (shardSize + 2L * overlap > MAX_WINDOW) {
+            throw new IllegalArgumentException("shardSize + 2 * overlap > " + MAX_WINDOW);
+        }
+        this.workers = workers;
+        this.shardSize = shardSize;
+        this.overlap = overlap;
+    }
+
+    public int getWorkers() {
+        return workers;
+    }
+
+    public long getShardSize() {
+        return shardSize;
+    }
+
+    public int getOverlap() {
+        return overlap;
+    }
+
+    public Result find(Path path) throws IOException {
+        long length = Files.size(path);
+        if (length == 0) {
+            return new Result(0, 0, 0, 0, 0, 0);
+        }
+
+        int shards = (int) ((length + shardSize - 1) / shardSize);
+        Shard[] results = radiusPass(path.toAbsolutePath(), length, shards);
+
+        // Exact centers first: the leftmost of the longest
+        Seams seams = new Seams(length);
+        PriorityQueue<Series> queue = new PriorityQueue<>(SERIES_ORDER);
+        for (Shard shard : results) {
+            if (shard.bestRadius > seams.bestRadius) {
+                seams.bestRadius = shard.bestRadius;
+                seams.bestCenter = shard.bestCenter;
+            }
+            for (int k = 0; k < shard.runs.length; k += 3) {
+                queue.add(new Series(shard, shard.runs[k], shard.runs[k + 1], shard.runs[k + 2], length));
+                seams.touching += shard.runs[k + 2];
+            }
+        }
+
+        // Then the seams, highest bound first
+        if (!queue.isEmpty()) {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                seams.text = MappedPalindromeFinder.Mapping.map(channel, length, 1);
+            }
+            while (!queue.isEmpty() && queue.peek().maxBound >= seams.bestRadius) {
+                seams.resolve(queue.poll());
+            }
+        }
+
+        return new Result((seams.bestCenter - seams.bestRadius) / 2, seams.bestRadius, shards, seams.touching,
+                seams.expanded, seams.comparisons);
+    }
+
+    /**
+     * Runs every shard on up to {@link #workers} worker processes, one
+     * coordinator thread each, taking shards in order.
+     */
+    private Shard[] radiusPass(Path path, long length, int shards) throws IOException {
+        Shard[] results = new Shard[shards];
+        AtomicInteger next = new AtomicInteger();
+        IOException[] failure = new IOException[1];
+
+        List<String> command = workerCommand(Math.min(length, shardSize + 2L * overlap));
+        Thread[] threads = new Thread[Math.min(workers, shards)];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                try {
+                    runWorker(command, path, length, shards, next, results);
+                } catch (IOException e) {
+                    synchronized (failure) {
+                        if (failure[0] == null) {
+                            failure[0] = e;
+                        }
+                    }
+                    // Let the other workers stop at their next shard
+                    next.set(shards);
+                }
+            }, "shard-coordinator-" + t);
+            threads[t].start();
+        }
+
+        try {
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        } catch (InterruptedException e) {
+            next.set(shards);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for shard workers");
+        }
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+        return results;
+    }
+
+    private void runWorker(List<String> command, Path path, long length, int shards, AtomicInteger next,
+            Shard[] results) throws IOException {
+        Process process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(process.getOutputStream()));
+                DataInputStream in = new DataInputStream(new BufferedInputStream(process.getInputStream()))) {
+            out.writeByte(ShardWorker.OPEN);
+            out.writeUTF(path.toString());
+
+            int k;
+            while ((k = next.getAndIncrement()) < shards) {
+                long coreFrom = k * shardSize;
+                long coreTo = Math.min(coreFrom + shardSize, length);
+                Shard shard = new Shard(Math.max(0, coreFrom - overlap), Math.min(length, coreTo + overlap));
+                out.writeByte(ShardWorker.SHARD);
+                out.writeLong(shard.windowFrom);
+                out.writeLong(shard.windowTo);
+                out.writeLong(coreFrom);
+                out.writeLong(coreTo);
+                out.writeLong(length);
+                out.flush();
+
+                shard.bestCenter = in.readLong();
+                shard.bestRadius = in.readInt();
+                shard.runs = new long[3 * in.readInt()];
+                for (int i = 0; i < shard.runs.length; i++) {
+                    shard.runs[i] = in.readLong();
+                }
+                results[k] = shard;
+            }
+        } catch (IOException e) {
+            process.destroyForcibly();
+            throw new IOException("Shard worker failed", e);
+        }
+
+        try {
+            if (process.waitFor() != 0) {
+                throw new IOException("Shard worker exited with " + process.exitValue());
+            }
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for a shard worker");
+        }
+    }
+
+    /**
+     * This JVM's launcher and class path, with a heap for one window.
+     */
+    private static List<String> workerCommand(long window) {
+        String java = ProcessHandle.current().info().command()
+                .orElse(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        long heapMegabytes = (9 * window >> 20) + 64;
+        List<String> command = new ArrayList<>();
+        command.add(java);
+        command.add("-Xmx" + heapMegabytes + "m");
+        command.add("-XX:+UseSerialGC");
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(ShardWorker.class.getName());
+        return command;
+    }
+
+    /**
+     * A worker's answer for one shard.
+     */
+    private static final class Shard {
+        final long windowFrom;
+        final long windowTo;
+        long bestCenter;
+        int bestRadius;
+        long[] runs;
+
+        Shard(long windowFrom, long windowTo) {
+            this.windowFrom = windowFrom;
+            this.windowTo = windowTo;
+        }
+    }
+
+    private static final Comparator<Series> SERIES_ORDER = (a, b) -> Long.compare(b.maxBound, a.maxBound);
+
+    /**
+     * A run of touching centers from one shard: palindromic suffixes of its
+     * window (right) or prefixes (left) whose lengths step by step. With two
+     * or more of them, all but the shortest have period step.
+     */
+    private static final class Series {
+        final Shard shard;
+        final long first;
+        final long step;
+        final long count;
+        final boolean left;
+        final long maxBound;
+
+        Series(Shard shard, long first, long step, long count, long length) {
+            this.shard = shard;
+            this.first = first;
+            this.step = step;
+            this.count = count;
+            this.left = first - 2 * shard.windowFrom <= 2 * shard.windowTo - first;
+
+            // bestCase is min(center, 2 * length - center): highest at the
+            // member nearest the middle
+            long lastCenter = first + (count - 1) * step;
+            if (lastCenter <= length) {
+                maxBound = lastCenter;
+            } else if (first >= length) {
+                maxBound = 2 * length - first;
+            } else {
+                long below = first + (length - first) / step * step;
+                maxBound = Math.max(below, 2 * length - below - step);
+            }
+        }
+    }
+
+    /**
+     * Resolution of touching centers over the mapped file, and the best
+     * palindrome so far.
+     */
+    private static final class Seams {
+        final long length;
+        MappedPalindromeFinder.Mapping text;
+
+        long bestCenter;
+        long bestRadius;
+        long touching;
+        long expanded;
+        long comparisons;
+
+        // For each period d, intervals [from, to) of positions i verified to
+        // have text[i] == text[i - d], so runs sharing a long periodic
+        // stretch (a block of one byte across many shards) read it once
+        private final Map<Long, TreeMap<Long, Long>> periodic = new HashMap<>();
+
+        Seams(long length) {
+            this.length = length;
+        }
+
+        /**
+         * True radii of a series' members. Take suffixes of a window ending
+         * at b, the longest P0 = [b - L0, b), and P_j of length L0 - j * d.
+         * P0 has period d. Let out be how far that period continues right
+         * of b and in how far it continues left of P0. Where L_j >= d, P_j
+         * is symmetric under the period, so it extends by exactly min(out,
+         * j * d + in) bytes past each end unless the two are equal; only
+         * then, and for a member shorter than d, is it expanded byte by
+         * byte. Prefixes are the mirror image. Each series costs O(count)
+         * plus the bytes of its period not read before.
+         */
+        void resolve(Series series) {
+            long a = series.shard.windowFrom;
+            long b = series.shard.windowTo;
+            long d = series.step;
+            long lastCenter = series.first + (series.count - 1) * d;
+            long longest = series.left ? lastCenter - 2 * a : 2 * b - series.first;
+
+            // No member needs more than maxBound / 2 past its ends
+            long cap = series.maxBound / 2 + 1;
+            long out = 0;
+            long in = 0;
+            if (series.count > 1) {
+                if (series.left) {
+                    out = down(d, a - 1 + d, Math.min(cap, a));
+                    in = up(d, a + longest, Math.min(cap, length - a - longest));
+                } else {
+                    out = up(d, b, Math.min(cap, length - b));
+                    in = down(d, b - longest - 1 + d, Math.min(cap, b - longest));
+                }
+            }
+
+            for (long j = 0; j < series.count; j++) {
+                long l = longest - j * d;
+                long center = series.left ? 2 * a + l : 2 * b - l;
+                long bound = Math.min(center, 2 * length - center);
+                // At bound == bestRadius only a center further left can win
+                if (bound < bestRadius || (bound == bestRadius && center >= bestCenter)) {
+                    continue;
+                }
+
+                long radius;
+                if (series.count == 1 || l < d) {
+                    radius = expand(center, l, bound);
+                } else {
+                    long extension = Math.min(out, j * d + in);
+                    radius = Math.min(l + 2 * extension, bound);
+                    if (out == j * d + in) {
+                        radius = expand(center, radius, bound);
+                    }
+                }
+
+                if (radius > bestRadius || (radius == bestRadius && center < bestCenter)) {
+                    bestRadius = radius;
+                    bestCenter = center;
+                }
+            }
+        }
+
+        private long expand(long center, long radius, long bound) {
+            long found = text.expand(center, radius, bound);
+            expanded++;
+            comparisons += (found - radius) + (found < bound ? 1 : 0);
+            return found;
+        }
+
+        /**
+         * Number of consecutive positions from, from + 1, ... (at most max)
+         * with text[i] == text[i - d].
+         */
+        private long up(long d, long from, long max) {
+            TreeMap<Long, Long> known = periodic.computeIfAbsent(d, k -> new TreeMap<>());
+            long end = from + max;
+            long i = from;
+            while (i < end) {
+                Map.Entry<Long, Long> interval = known.floorEntry(i);
+                if (interval != null && interval.getValue() > i) {
+                    i = Math.min(interval.getValue(), end);
+                    continue;
+                }
+                Long next = known.higherKey(i);
+                long stop = (next == null) ? end : Math.min(next, end);
+                long before = i;
+                while (i < stop && text.at(i) == text.at(i - d)) {
+                    i++;
+                }
+                comparisons += (i - before) + (i < stop ? 1 : 0);
+                if (i < stop) {
+                    break;
+                }
+            }
+            record(known, from, i);
+            return i - from;
+        }
+
+        /**
+         * Number of consecutive positions from, from - 1, ... (at most max)
+         * with text[i] == text[i - d].
+         */
+        private long down(long d, long from, long max) {
+            TreeMap<Long, Long> known = periodic.computeIfAbsent(d, k -> new TreeMap<>());
+            long end = from - max;
+            long i = from;
+            while (i > end) {
+                Map.Entry<Long, Long> interval = known.floorEntry(i);
+                if (interval != null && interval.getValue() > i) {
+                    i = Math.max(interval.getKey() - 1, end);
+                    continue;
+                }
+                Long previous = known.lowerKey(i);
+                long stop = end;
+                if (previous != null) {
+                    stop = Math.max(known.get(previous) - 1, end);
+                }
+                long before = i;
+                while (i > stop && text.at(i) == text.at(i - d)) {
+                    i--;
+                }
+                comparisons += (before - i) + (i > stop ? 1 : 0);
+                if (i > stop) {
+                    break;
+                }
+            }
+            record(known, i + 1, from + 1);
+            return from - i;
+        }
+
+        private static void record(TreeMap<Long, Long> known, long from, long to) {
+            if (to <= from) {
+                return;
+            }
+            Map.Entry<Long, Long> before = known.floorEntry(from);
+            if (before != null && before.getValue() >= from) {
+                from = before.getKey();
+                to = Math.max(to, before.getValue());
+            }
+            Map.Entry<Long, Long> overlapping;
+            while ((overlapping = known.ceilingEntry(from)) != null && overlapping.getKey() <= to) {
+                to = Math.max(to, overlapping.getValue());
+                known.remove(overlapping.getKey());
+            }
+            known.put(from, to);
+        }
+    }
+
+    /**
+     * A longest palindrome of the file, in bytes, and what it took.
+     */
+    public static final class Result {
+        private final long start;
+        private final long length;
+        private final int shards;
+        private final long touchingCenters;
+        private final long expandedCenters;
+        private final long comparisons;
+
+        Result(long start, long length, int shards, long touchingCenters, long expandedCenters, long comparisons) {
+            this.start = start;
+            this.length = length;
+            this.shards = shards;
+            this.touchingCenters = touchingCenters;
+            this.expandedCenters = expandedCenters;
+            this.comparisons = comparisons;
+        }
+
+        public long getStart() {
+            return start;
+        }
+
+        public long getLength() {
+            return length;
+        }
+
+        public int getShards() {
+            return shards;
+        }
+
+        /**
+         * Centers whose palindrome reached a window edge in the workers.
+         */
+        public long getTouchingCenters() {
+            return touchingCenters;
+        }
+
+        /**
+         * Touching centers expanded byte by byte across a seam; the rest
+         * were resolved from the period of their progression or pruned.
+         */
+        public long getExpandedCenters() {
+            return expandedCenters;
+        }
+
+        /**
+         * Comparisons made resolving seams, not counting the workers'.
+         */
+        public long getComparisonCount() {
+            return comparisons;
+        }
+
+        @Override
+        public String toString() {
+            return "[" + start + ", " + (start + length) + ") length=" + length + " shards=" + shards
+                    + " touching=" + touchingCenters + " expanded=" + expandedCenters + " comparisons="
+                    + comparisons;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.out.println("Usage: java ShardedPalindromeFinder <file> [--workers N] [--shard-size bytes]"
+                    + " [--overlap bytes]");
+            return;
+        }
+        Path path = Paths.get(args[0]);
+        int workers = Runtime.getRuntime().availableProcessors();
+        long shardSize = DEFAULT_SHARD_SIZE;
+        int overlap = DEFAULT_OVERLAP;
+        for (int i = 1; i < args.length; i++) {
+            String option = args[i];
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + option);
+            }
+            String value = args[++i];
+            switch (option) {
+                case "--workers":
+                    workers = Integer.parseInt(value);
+                    break;
+                case "--shard-size":
+                    shardSize = Long.parseLong(value);
+                    break;
+                case "--overlap":
+                    overlap = Integer.parseInt(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + option);
+            }
+        }
+
+        long begin = System.nanoTime();
+        Result result = new ShardedPalindromeFinder(workers, shardSize, overlap).find(path);
+        System.out.printf("%s in %.1f ms%n", result, (System.nanoTime() - begin) / 1e6);
+    }
+}
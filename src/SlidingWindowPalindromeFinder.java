@@ -0,0 +1,393 @@
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Longest palindrome inside the most recent characters of a stream, kept up
+ * to date as characters arrive and expire.
+ *
+ * Positions are those of the '#'-transformed stream, as in {@link Solution}.
+ * Every center of the window is in one of two states:
+ * <ul>
+ * <li>open: its palindrome still reaches the end of the stream, i.e. it is a
+ * palindromic suffix. The lengths of the palindromic suffixes form
+ * O(log W) arithmetic progressions, and all members of a progression but
+ * the longest are preceded by the same character, so one append updates a
+ * whole progression with two comparisons.</li>
+ * <li>closed: its palindrome hit a mismatch and its radius is final. The
+ * radius counts as is until the window's left edge passes the palindrome's
+ * left end; from then on only the part inside the window counts, which
+ * reaches the edge, so only the rightmost such center matters. Closed
+ * centers sit in a max segment tree until the edge passes them, found
+ * through buckets keyed by their left end.</li>
+ * </ul>
+ * The longest palindrome is the best of the segment tree's maximum, the
+ * rightmost center cut by the edge, and the open center nearest to the
+ * window's middle, found per progression in O(1).
+ *
+ * Every center is closed and passed by the edge once, so append and evict
+ * cost amortized O(log W), and so does a query. Memory is fixed at
+ * construction at about 36 bytes per window character.
+ *
+ * Not thread-safe.
+ */
+public final class SlidingWindowPalindromeFinder {
+
+    private final int windowSize;
+
+    // Last 2 * windowSize + 2 characters, the furthest back an open
+    // palindrome of interest can look
+    private final char[] text;
+
+    // Closed centers by slot (transformed position mod slots): radius in
+    // the leaves of a max segment tree, -1 where empty
+    private final int slots;
+    private final int[] tree;
+
+    // Closed centers by the slot of their left end, chained through next
+    private final int[] bucketHead;
+    private final int[] bucketNext;
+
+    // Open centers: the palindromic suffix lengths, as progressions
+    // longest[i], longest[i] - step[i], ... of count[i] members, longest
+    // first; rebuilt into the spare arrays on every append
+    private int[] longest = new int[32];
+    private int[] step = new int[32];
+    private int[] count = new int[32];
+    private int progressions;
+    private int[] spareLongest = new int[32];
+    private int[] spareStep = new int[32];
+    private int[] spareCount = new int[32];
+    private int spareProgressions;
+
+    // The window is stream positions [left, end)
+    private long left;
+    private long end;
+    private int endSlot;       // end mod text.length
+    private int twoLeftSlot;   // 2 * left mod slots
+    private int twoEndSlot;    // 2 * end mod slots
+
+    // Rightmost closed center whose palindrome the edge has cut, or -1
+    private long cutCenter;
+
+    // Result of the last query: transformed center and radius in the window
+    private long bestCenter;
+    private int bestRadius;
+
+    public SlidingWindowPalindromeFinder(int windowSize) {
+        if (windowSize <= 0) {
+            throw new IllegalArgumentException("windowSize <= 0: " + windowSize);
+        }
+        if (windowSize > (Integer.MAX_VALUE - 8) / 4 - 1) {
+            throw new IllegalArgumentException("windowSize too large: " + windowSize);
+        }
+        this.windowSize = windowSize;
+        this.text = new char[2 * windowSize + 2];
+        this.slots = 2 * windowSize + 2;
+        this.tree = new int[2 * slots];
+        this.bucketHead = new int[slots];
+        this.bucketNext = new int[slots];
+        reset();
+    }
+
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    /**
+     * Number of characters in the window.
+     */
+    public int size() {
+        return (int) (end - left);
+    }
+
+    /**
+     * Number of characters appended so far.
+     */
+    public long position() {
+        return end;
+    }
+
+    /**
+     * Forgets everything appended so far, keeping the buffers.
+     */
+    public void reset() {
+        Arrays.fill(tree, -1);
+        Arrays.fill(bucketHead, -1);
+        left = 0;
+        end = 0;
+        endSlot = 0;
+        twoLeftSlot = 0;
+        twoEndSlot = 0;
+        cutCenter = -1;
+        // The empty suffix, centered at transformed position 0
+        progressions = 1;
+        longest[0] = 0;
+        step[0] = 0;
+        count[0] = 1;
+    }
+
+    /**
+     * Appends c, evicting the oldest character first if the window is full.
+     */
+    public void append(char c) {
+        if (end - left == windowSize) {
+            evict();
+        }
+
+        int cap = 2 * windowSize;
+        spareProgressions = 0;
+        for (int i = 0; i < progressions; i++) {
+            int top = longest[i];
+            int d = step[i];
+            int m = count[i];
+
+            // The longest member is preceded by a character of its own
+            // (past 2 * windowSize, the center is out of the window for good)
+            if (top < end && charBefore(top) == c) {
+                if (top + 2 <= cap) {
+                    emit(top + 2, 0, 1);
+                }
+            } else {
+                close(top);
+            }
+
+            // The others all share the character before the shortest one
+            if (m > 1) {
+                int bottom = top - (m - 1) * d;
+                if (charBefore(bottom) == c) {
+                    int first = top - d + 2;
+                    if (first > cap) {
+                        int skip = (first - cap + d - 1) / d;
+                        first -= skip * d;
+                        m -= skip;
+                    }
+                    if (m > 1) {
+                        emit(first, d, m - 1);
+                    }
+                } else {
+                    for (int k = bottom; k < top; k += d) {
+                        close(k);
+                    }
+                }
+            }
+        }
+        emit(1, 0, 1);
+        emit(0, 0, 1);
+        swapProgressions();
+
+        text[endSlot] = c;
+        if (++endSlot == text.length) {
+            endSlot = 0;
+        }
+        twoEndSlot += 2;
+        if (twoEndSlot >= slots) {
+            twoEndSlot -= slots;
+        }
+        end++;
+    }
+
+    /**
+     * Removes the oldest character of the window.
+     *
+     * @throws NoSuchElementException if the window is empty
+     */
+    public void evict() {
+        if (end == left) {
+            throw new NoSuchElementException("window is empty");
+        }
+
+        // Closed palindromes starting at transformed 2 * left or just after
+        // now stick out of the window
+        for (int k = 0; k < 2; k++) {
+            int bucket = twoLeftSlot + k;
+            if (bucket >= slots) {
+                bucket -= slots;
+            }
+            for (int slot = bucketHead[bucket]; slot >= 0; slot = bucketNext[slot]) {
+                update(slot, -1);
+                cutCenter = Math.max(cutCenter, centerOf(slot));
+            }
+            bucketHead[bucket] = -1;
+        }
+
+        twoLeftSlot += 2;
+        if (twoLeftSlot >= slots) {
+            twoLeftSlot -= slots;
+        }
+        left++;
+    }
+
+    /**
+     * Stream position of the longest palindrome in the window.
+     */
+    public long currentLongestStart() {
+        query();
+        return (bestCenter - bestRadius) / 2;
+    }
+
+    public int currentLongestLength() {
+        query();
+        return bestRadius;
+    }
+
+    public String currentLongest() {
+        query();
+        int length = bestRadius;
+        long start = (bestCenter - bestRadius) / 2;
+        char[] chars = new char[length];
+        int from = Math.floorMod(endSlot - (int) (end - start), text.length);
+        for (int i = 0; i < length; i++) {
+            chars[i] = text[from];
+            if (++from == text.length) {
+                from = 0;
+            }
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Sets bestCenter and bestRadius.
+     */
+    private void query() {
+        long twoLeft = 2 * left;
+        bestCenter = twoLeft;
+        bestRadius = 0;
+
+        int closed = tree[1];
+        if (closed > bestRadius) {
+            int node = 1;
+            while (node < slots) {
+                node = (tree[2 * node] == closed) ? 2 * node : 2 * node + 1;
+            }
+            bestCenter = centerOf(node - slots);
+            bestRadius = closed;
+        }
+
+        if (cutCenter - twoLeft > bestRadius) {
+            bestCenter = cutCenter;
+            bestRadius = (int) (cutCenter - twoLeft);
+        }
+
+        // An open palindrome of length len has center 2 * end - len and
+        // keeps min(len, 2 * size - len) inside the window: look at the
+        // members on both sides of size
+        int size = (int) (end - left);
+        for (int i = 0; i < progressions; i++) {
+            int top = longest[i];
+            int d = step[i];
+            int bottom = top - (count[i] - 1) * d;
+            int below = -1;
+            int above = -1;
+            if (top <= size) {
+                below = top;
+            } else if (bottom > size) {
+                above = bottom;
+            } else {
+                int j = (top - size - 1) / d;
+                above = top - j * d;
+                below = above - d;
+            }
+            if (below > bestRadius) {
+                bestCenter = 2 * end - below;
+                bestRadius = below;
+            }
+            if (above >= 0 && 2 * size - above > bestRadius) {
+                bestCenter = 2 * end - above;
+                bestRadius = 2 * size - above;
+            }
+        }
+    }
+
+    /**
+     * Character before the palindromic suffix of the given length.
+     */
+    private char charBefore(int length) {
+        int i = endSlot - length - 1;
+        return text[i < 0 ? i + text.length : i];
+    }
+
+    /**
+     * Closes the open center whose palindromic suffix has the given length.
+     */
+    private void close(int radius) {
+        if (radius == 0) {
+            return;
+        }
+        long center = 2 * end - radius;
+        long twoLeft = 2 * left;
+        if (center < twoLeft) {
+            return;
+        }
+        if (center - radius < twoLeft) {
+            cutCenter = Math.max(cutCenter, center);
+            return;
+        }
+        int slot = twoEndSlot - radius;
+        if (slot < 0) {
+            slot += slots;
+        }
+        int bucket = Math.floorMod(twoEndSlot - 2 * radius, slots);
+        update(slot, radius);
+        bucketNext[slot] = bucketHead[bucket];
+        bucketHead[bucket] = slot;
+    }
+
+    private long centerOf(int slot) {
+        int offset = slot - twoLeftSlot;
+        return 2 * left + (offset < 0 ? offset + slots : offset);
+    }
+
+    private void update(int slot, int radius) {
+        int node = slots + slot;
+        tree[node] = radius;
+        for (node >>= 1; node >= 1; node >>= 1) {
+            int max = Math.max(tree[2 * node], tree[2 * node + 1]);
+            if (tree[node] == max) {
+                return;
+            }
+            tree[node] = max;
+        }
+    }
+
+    /**
+     * Adds members top, top - d, ... (m of them) below the spare list,
+     * merging with its last progression when the spacing continues it.
+     */
+    private void emit(int top, int d, int m) {
+        int last = spareProgressions - 1;
+        if (last >= 0) {
+            int gap = spareLongest[last] - (spareCount[last] - 1) * spareStep[last] - top;
+            if (spareCount[last] == 1 && (m == 1 || d == gap)) {
+                spareStep[last] = gap;
+                spareCount[last] += m;
+                return;
+            }
+            if (gap == spareStep[last] && (m == 1 || d == gap)) {
+                spareCount[last] += m;
+                return;
+            }
+        }
+        if (spareProgressions == spareLongest.length) {
+            spareLongest = Arrays.copyOf(spareLongest, 2 * spareProgressions);
+            spareStep = Arrays.copyOf(spareStep, 2 * spareProgressions);
+            spareCount = Arrays.copyOf(spareCount, 2 * spareProgressions);
+        }
+        spareLongest[spareProgressions] = top;
+        spareStep[spareProgressions] = d;
+        spareCount[spareProgressions] = m;
+        spareProgressions++;
+    }
+
+    private void swapProgressions() {
+        int[] t = longest;
+        longest = spareLongest;
+        spareLongest = t;
+        t = step;
+        step = spareStep;
+        spareStep = t;
+        t = count;
+        count = spareCount;
+        spareCount = t;
+        progressions = spareProgressions;
+    }
+}
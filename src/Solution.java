@@ -1,30 +1,34 @@
+import java.util.Arrays;
+import java.util.Objects;
+
 /**
  * Optimized O(n) Priority-based algorithm for Longest Palindromic Substring.
  * Uses bestCase-driven pointer movement for guaranteed linear complexity.
  *
+ * Instances keep the counters of their last call for the getters below, so
+ * they must not be shared between threads. Use
+ * {@link PalindromeFinder#priority()} for a shareable, counter-free engine.
+ *
  * Author: Krushn Gor
  */
 public class Solution {
 
-    private long comparisonCount = 0L;
-    private long outerLoopCount = 0L;
-    private long positionChecks = 0L;
-    private long earlyTerminations = 0L;
+    private final long[] counters = new long[PalindromeStats.COUNTERS];
 
     public long getComparisonCount() {
-        return comparisonCount;
+        return counters[PalindromeStats.COMPARISONS];
     }
 
     public long getOuterLoopCount() {
-        return outerLoopCount;
+        return counters[PalindromeStats.OUTER_LOOPS];
     }
 
     public long getPositionChecks() {
-        return positionChecks;
+        return counters[PalindromeStats.POSITION_CHECKS];
     }
 
     public long getEarlyTerminations() {
-        return earlyTerminations;
+        return counters[PalindromeStats.EARLY_TERMINATIONS];
     }
 
     public static int getTransformedLength(int originalLength) {
@@ -32,40 +36,122 @@ public class Solution {
     }
 
     public String longestPalindrome(String s) {
-        // Reset all counters
-        comparisonCount = 0L;
-        outerLoopCount = 0L;
-        positionChecks = 0L;
-        earlyTerminations = 0L;
-
-        if (s == null || s.length() == 0) {
-            return "";
+        if (s == null) {
+            return longestPalindrome("");
+        }
+
+        long range = longestPalindrome(s, 0, s.length());
+        return PalindromeEvents.extract(PriorityPalindromeFinder.NAME, s, range);
+    }
+
+    /**
+     * Allocation-free variant over s[offset, offset + length).
+     *
+     * @return the palindrome packed as a {@link PalindromeRange}, with its
+     *         start as an index into s
+     */
+    public long longestPalindrome(char[] s, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, s.length);
+        return traced(s, offset, length, counters);
+    }
+
+    /**
+     * Allocation-free variant over s[offset, offset + length), reading each
+     * byte as one character.
+     */
+    public long longestPalindrome(byte[] s, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, s.length);
+        return traced(s, offset, length, counters);
+    }
+
+    /**
+     * Allocation-free variant over s[offset, offset + length).
+     */
+    public long longestPalindrome(CharSequence s, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, s.length());
+        return traced(s, offset, length, counters);
+    }
+
+    /**
+     * {@link #search}, as a {@link PalindromeEvents.Search} event with one
+     * prioritySearch phase when enabled. Shared with
+     * {@link PriorityPalindromeFinder}.
+     *
+     * @param counters this instance's counters, a finder's for
+     *                 findWithStats, or null
+     */
+    static long traced(Object src, int offset, int length, long[] counters) {
+        PalindromeEvents.Trace trace = PalindromeEvents.trace(PriorityPalindromeFinder.NAME, length, 1);
+        if (!trace.isOn()) {
+            return search(src, offset, length, counters);
         }
-        if (s.length() == 1) {
-            return s;
+        if (counters == null) {
+            counters = new long[PalindromeStats.COUNTERS];
         }
+        trace.begin("prioritySearch");
+        long range = search(src, offset, length, counters);
+        trace.end(counters);
+        trace.finish(range, counters, PriorityPalindromeFinder.NAME, PalindromeEvents.priorityTermination(counters));
+        return range;
+    }
 
-        // Step 1: Transform with '#'
-        int origLen = s.length();
-        int n = 2 * origLen + 1;
-        char[] str = new char[n];
+    /**
+     * Returned by the budgeted {@link #search} when it gave up.
+     */
+    static final long OVER_BUDGET = -1L;
+
+    /**
+     * The search itself, shared by this class and
+     * {@link PriorityPalindromeFinder}. Keeps no state; counters are only
+     * written when the caller passes an array for them (reset here), and
+     * only once, on return.
+     */
+    static long search(Object src, int offset, int length, long[] counters) {
+        return search(src, offset, length, counters, Long.MAX_VALUE, 0, Long.MAX_VALUE, null);
+    }
 
-        str[0] = '#';
-        for (int i = 0; i < origLen; i++) {
-            str[i * 2 + 1] = s.charAt(i);
-            str[i * 2 + 2] = '#';
+    /**
+     * Budgeted search: gives up and returns {@link #OVER_BUDGET} once the
+     * comparisons would exceed baseBudget + budgetPerCheck for every position
+     * checked so far, or once maxChecks positions were checked without an
+     * answer. Expansions are cut short at the budget, so it is never
+     * overshot: a run that stays under a linear budget is linear, and one
+     * that goes over it stops after exactly that much work.
+     *
+     * @param seeds null, or a workspace whose ints(2 * length + 1) receive
+     *              seeds for a Manacher pass once the search has spent
+     *              half its budget: -1 everywhere, then the exact radius of
+     *              every center checked from there on. A search that gives
+     *              up always leaves them set; one that finishes below half
+     *              its budget never touches the workspace
+     */
+    static long search(Object src, int offset, int length, long[] counters, long baseBudget, int budgetPerCheck,
+            long maxChecks, PalindromeWorkspace seeds) {
+        if (counters != null) {
+            Arrays.fill(counters, 0L);
         }
 
-        // Step 2: Calculate best case radius (mutable - updates as we find actual
-        // values)
-        int[] bestCase = new int[n];
-        for (int i = 0; i < n; i++) {
-            bestCase[i] = Math.min(i, n - 1 - i);
+        if (length <= 1) {
+            return PalindromeRange.of(offset, length);
         }
 
+        // Step 1: Work on the virtual '#'-transformed string (see
+        // CenterExpansion), so it is never materialized
+        int n = 2 * length + 1;
+
+        // Step 2: bestCase[i] = min(i, n - 1 - i) is computed on the fly;
+        // every center is checked at most once, so it is never updated
+        int mid = n / 2;
+
         int bestRadius = 0;
         int bestCenter = 0;
-        int mid = n / 2;
+
+        // spent and checks are also the comparison and position-check
+        // counters; like the loop count, they are stored once on the way out
+        long spent = 0;
+        long checks = 0;
+        long loops = 0;
+        int[] confirmed = null;
 
         // Initialize pointers
         int parentPtr = mid;
@@ -74,100 +160,120 @@ public class Solution {
 
         // Step 3: Check positions using bestCase-driven pointer movement
         while (leftPtr >= 0 || rightPtr < n) {
-            outerLoopCount++;
+            loops++;
 
             // Get bestCase values for both pointers
-            int leftBest = (leftPtr >= 0) ? bestCase[leftPtr] : -1;
-            int rightBest = (rightPtr < n) ? bestCase[rightPtr] : -1;
+            int leftBest = (leftPtr >= 0) ? bestCase(leftPtr, n) : -1;
+            int rightBest = (rightPtr < n) ? bestCase(rightPtr, n) : -1;
 
             // Early termination: neither pointer can beat current best
             if (leftBest <= bestRadius && rightBest <= bestRadius) {
-                earlyTerminations++;
-                break;
+                count(counters, loops, checks, spent, 1);
+                return toRange(offset, bestCenter, bestRadius);
             }
 
             // CRITICAL: Choose next pointer based on bestCase comparison
+            int parentBest;
             if (leftBest > rightBest && leftPtr >= 0) {
                 parentPtr = leftPtr;
+                parentBest = leftBest;
             } else if (rightBest >= leftBest && rightPtr < n) {
                 parentPtr = rightPtr;
+                parentBest = rightBest;
             } else {
-                earlyTerminations++;
-                break;
+                count(counters, loops, checks, spent, 1);
+                return toRange(offset, bestCenter, bestRadius);
             }
 
             // Check current parent position
-            if (bestCase[parentPtr] > bestRadius) {
-                positionChecks++;
-                int originalBestCase = bestCase[parentPtr]; // Save original before updating
-                int foundRadius = expandFromCenter(str, parentPtr, bestCase[parentPtr]);
+            if (parentBest > bestRadius) {
+                // Cut the expansion short where the budget runs out
+                int limit = parentBest;
+                long used = spent - budgetPerCheck * (checks + 1);
+                if (used > baseBudget - parentBest) {
+                    limit = (int) Math.max(baseBudget - used, 0);
+                }
+
+                int foundRadius = CenterExpansion.expand(src, offset, parentPtr, 0, limit);
+                long comparisons = CenterExpansion.comparisons(0, foundRadius, limit);
+                spent += comparisons;
+                checks++;
+                if (seeds != null && confirmed == null && spent - budgetPerCheck * checks > baseBudget / 2) {
+                    confirmed = seeds(seeds, n);
+                }
+
+                // Stopped by the budget, not a mismatch: radius unknown
+                if (foundRadius == limit && limit < parentBest) {
+                    if (seeds != null && confirmed == null) {
+                        seeds(seeds, n);
+                    }
+                    count(counters, loops, checks, spent, 0);
+                    return OVER_BUDGET;
+                }
+                if (confirmed != null) {
+                    confirmed[parentPtr] = foundRadius;
+                }
 
                 if (foundRadius > bestRadius) {
                     bestRadius = foundRadius;
                     bestCenter = parentPtr;
                 }
 
-                // CRITICAL: Update bestCase to actual found value
-                bestCase[parentPtr] = foundRadius;
-
                 // If matched original bestCase, we found longest possible
-                if (foundRadius == originalBestCase) {
-                    earlyTerminations++;
-                    return extractPalindrome(str, bestCenter, bestRadius);
+                if (foundRadius == parentBest) {
+                    count(counters, loops, checks, spent, 1);
+                    return toRange(offset, bestCenter, bestRadius);
+                }
+
+                if (spent - budgetPerCheck * checks > baseBudget || checks >= maxChecks) {
+                    if (seeds != null && confirmed == null) {
+                        seeds(seeds, n);
+                    }
+                    count(counters, loops, checks, spent, 0);
+                    return OVER_BUDGET;
                 }
             }
 
-            // Move the pointer we just checked
+            // Move the pointer we just checked. Both start on mid, so both
+            // move past it; otherwise the right side stays parked on mid
+            // and early termination can fire before it is ever searched
             if (parentPtr == leftPtr) {
                 leftPtr--;
-            } else if (parentPtr == rightPtr) {
+            }
+            if (parentPtr == rightPtr) {
                 rightPtr++;
             }
         }
 
-        return extractPalindrome(str, bestCenter, bestRadius);
+        count(counters, loops, checks, spent, 0);
+        return toRange(offset, bestCenter, bestRadius);
     }
 
-    private int expandFromCenter(char[] str, int center, int maxRadius) {
-        int left = center - 1;
-        int right = center + 1;
-        int n = str.length;
-        int radius = 0;
-
-        while (left >= 0 && right < n && radius < maxRadius) {
-            comparisonCount++;
-            if (str[left] != str[right]) {
-                break;
-            }
-            radius++;
-            left--;
-            right++;
-        }
-
-        return radius;
+    private static int[] seeds(PalindromeWorkspace seeds, int n) {
+        int[] confirmed = seeds.ints(n);
+        Arrays.fill(confirmed, 0, n, -1);
+        return confirmed;
     }
 
-    private String extractPalindrome(char[] str, int center, int radius) {
-        int L = center - radius;
-        int R = center + radius;
-
-        // Count non-# characters
-        int resultLen = 0;
-        for (int i = L; i <= R; i++) {
-            if (str[i] != '#') {
-                resultLen++;
-            }
+    private static void count(long[] counters, long loops, long checks, long comparisons, long earlyTerminations) {
+        if (counters != null) {
+            counters[PalindromeStats.OUTER_LOOPS] = loops;
+            counters[PalindromeStats.POSITION_CHECKS] = checks;
+            counters[PalindromeStats.COMPARISONS] = comparisons;
+            counters[PalindromeStats.EARLY_TERMINATIONS] = earlyTerminations;
         }
+    }
 
-        // Build result directly
-        char[] result = new char[resultLen];
-        int idx = 0;
-        for (int i = L; i <= R; i++) {
-            if (str[i] != '#') {
-                result[idx++] = str[i];
-            }
-        }
+    private static int bestCase(int i, int n) {
+        return Math.min(i, n - 1 - i);
+    }
 
-        return new String(result);
+    /**
+     * Maps a transformed (center, radius) back to the original text. A
+     * maximal palindrome always starts on a separator, so its first
+     * character is at (center - radius) / 2 and it is radius characters long.
+     */
+    private static long toRange(int offset, int center, int radius) {
+        return PalindromeRange.of(offset + (center - radius) / 2, radius);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,289 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Longest palindrome over an unbounded stream of characters, in bounded
+ * memory.
+ *
+ * Characters are buffered in blocks. Each block is searched by Manacher's
+ * algorithm together with the last maxPalindromeLength - 1 characters
+ * before it, so every palindrome up to maxPalindromeLength long that ends
+ * in the block lies entirely inside one search. The overlap costs
+ * maxPalindromeLength / blockSize extra work per character, and memory is
+ * fixed at construction: one char buffer and one radius array of
+ * maxPalindromeLength + blockSize.
+ *
+ * The search is online: Manacher's state is kept between appends, and it
+ * stops at the first center whose palindrome reaches the last character
+ * so far, to grow it when more arrive. A query only searches what arrived
+ * since the previous one, so polling after every chunk, or every
+ * character, costs amortized O(1) per character. No center past the
+ * stopped one can hold a longer palindrome: a palindrome there either
+ * reaches the end too, inside the stopped one, or mirrors one already
+ * searched.
+ *
+ * The result is exact whenever the longest palindrome of the stream is at
+ * most maxPalindromeLength long. A longer one is still reported as a
+ * palindrome of at least maxPalindromeLength - 1 characters.
+ *
+ * Bytes from InputStreams and channels are read as Latin-1. Not thread-safe.
+ */
+public final class StreamingPalindromeFinder {
+
+    /**
+     * Default block size when none is given: at least 64K characters, and at
+     * least 4x the overlap so it stays a small fraction of every scan.
+     */
+    static int defaultBlockSize(int maxPalindromeLength) {
+        return (int) Math.min(Math.max(4L * maxPalindromeLength, 1 << 16), Integer.MAX_VALUE / 4);
+    }
+
+    private final int maxPalindromeLength;
+    private final int blockSize;
+
+    private final char[] buffer;
+    private final int[] radii;
+    private final char[] bestChars;
+
+    // buffer[0] is stream position bufferStart; buffer[0, filled) is held
+    private long bufferStart;
+    private int filled;
+
+    // Manacher's state over the '#'-transformed buffer (see
+    // CenterExpansion): radii[0, next) are final, radii[next] is what
+    // center next has matched so far, and center's palindrome reaches
+    // right, the furthest yet
+    private int next;
+    private int center;
+    private int right;
+
+    private long bestStart;
+    private int bestLength;
+    // Whether bestChars still has to be copied out of the buffer
+    private boolean bestInBuffer;
+
+    public StreamingPalindromeFinder(int maxPalindromeLength) {
+        this(maxPalindromeLength, defaultBlockSize(maxPalindromeLength));
+    }
+
+    public StreamingPalindromeFinder(int maxPalindromeLength, int blockSize) {
+        if (maxPalindromeLength <= 0) {
+            throw new IllegalArgumentException("maxPalindromeLength <= 0: " + maxPalindromeLength);
+        }
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("blockSize <= 0: " + blockSize);
+        }
+        long capacity = (long) maxPalindromeLength - 1 + blockSize;
+        if (2 * capacity + 1 > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("maxPalindromeLength + blockSize too large: " + capacity);
+        }
+        this.maxPalindromeLength = maxPalindromeLength;
+        this.blockSize = blockSize;
+        this.buffer = new char[(int) capacity];
+        this.radii = new int[(int) (2 * capacity + 1)];
+        this.bestChars = new char[(int) capacity];
+    }
+
+    public int getMaxPalindromeLength() {
+        return maxPalindromeLength;
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    /**
+     * Number of characters consumed so far.
+     */
+    public long position() {
+        return bufferStart + filled;
+    }
+
+    /**
+     * Forgets everything consumed so far, keeping the buffers.
+     */
+    public void reset() {
+        bufferStart = 0;
+        filled = 0;
+        next = 0;
+        center = 0;
+        right = 0;
+        bestStart = 0;
+        bestLength = 0;
+        bestInBuffer = false;
+    }
+
+    public void append(char c) {
+        if (filled == buffer.length) {
+            flushBlock();
+        }
+        buffer[filled++] = c;
+    }
+
+    public void append(char[] chars, int offset, int length) {
+        while (length > 0) {
+            if (filled == buffer.length) {
+                flushBlock();
+            }
+            int n = Math.min(length, buffer.length - filled);
+            System.arraycopy(chars, offset, buffer, filled, n);
+            filled += n;
+            offset += n;
+            length -= n;
+        }
+    }
+
+    /**
+     * Appends bytes as Latin-1 characters.
+     */
+    public void append(byte[] bytes, int offset, int length) {
+        while (length > 0) {
+            if (filled == buffer.length) {
+                flushBlock();
+            }
+            int n = Math.min(length, buffer.length - filled);
+            for (int i = 0; i < n; i++) {
+                buffer[filled + i] = (char) (bytes[offset + i] & 0xFF);
+            }
+            filled += n;
+            offset += n;
+            length -= n;
+        }
+    }
+
+    /**
+     * Reads in until end of stream; does not close it.
+     *
+     * @return number of characters read
+     */
+    public long consume(Reader in) throws IOException {
+        long total = 0;
+        while (true) {
+            if (filled == buffer.length) {
+                flushBlock();
+            }
+            int n = in.read(buffer, filled, buffer.length - filled);
+            if (n < 0) {
+                return total;
+            }
+            filled += n;
+            total += n;
+        }
+    }
+
+    /**
+     * Reads in until end of stream, as Latin-1; does not close it.
+     *
+     * @return number of bytes read
+     */
+    public long consume(InputStream in) throws IOException {
+        byte[] chunk = new byte[8192];
+        long total = 0;
+        int n;
+        while ((n = in.read(chunk)) >= 0) {
+            append(chunk, 0, n);
+            total += n;
+        }
+        return total;
+    }
+
+    /**
+     * Reads in until end of stream, as Latin-1; does not close it. A
+     * non-blocking channel is read until it has no more bytes available.
+     *
+     * @return number of bytes read
+     */
+    public long consume(ReadableByteChannel in) throws IOException {
+        ByteBuffer chunk = ByteBuffer.allocate(1 << 16);
+        long total = 0;
+        int n;
+        while ((n = in.read(chunk)) > 0) {
+            append(chunk.array(), 0, chunk.position());
+            chunk.clear();
+            total += n;
+        }
+        return total;
+    }
+
+    /**
+     * Stream position of the longest palindrome seen so far (earliest on
+     * ties). Characters that arrived since the last query are searched
+     * first.
+     */
+    public long getLongestStart() {
+        scanPending();
+        return bestStart;
+    }
+
+    public int getLongestLength() {
+        scanPending();
+        return bestLength;
+    }
+
+    public String getLongest() {
+        scanPending();
+        saveBest();
+        return new String(bestChars, 0, bestLength);
+    }
+
+    /**
+     * Searches the full buffer, then keeps only the overlap for the next
+     * block, whose search starts over at the overlap's first center.
+     */
+    private void flushBlock() {
+        scanPending();
+        saveBest();
+
+        int keep = Math.min(maxPalindromeLength - 1, filled);
+        System.arraycopy(buffer, filled - keep, buffer, 0, keep);
+        bufferStart += filled - keep;
+        filled = keep;
+        next = 0;
+        center = 0;
+        right = 0;
+    }
+
+    /**
+     * Runs Manacher's loop from center next up to the first center whose
+     * palindrome reaches the end of the buffer, or past the last center.
+     */
+    private void scanPending() {
+        int end = 2 * filled;
+        while (next <= end) {
+            int i = next;
+            int radius = (i < right) ? Math.min(radii[2 * center - i], right - i) : 0;
+            int limit = Math.min(i, end - i);
+            int found = CenterExpansion.expand(buffer, 0, i, radius, limit);
+            radii[i] = found;
+            if (i + found > right) {
+                center = i;
+                right = i + found;
+            }
+            // A radius is a length in characters; only a longer one
+            // replaces the best, which keeps the earliest
+            if (found > bestLength) {
+                bestStart = bufferStart + (i - found) / 2;
+                bestLength = found;
+                bestInBuffer = true;
+            }
+            if (found == end - i && found < i) {
+                // Can still grow with the next characters
+                return;
+            }
+            next++;
+        }
+    }
+
+    /**
+     * Copies the best palindrome out of the buffer, before it moves.
+     */
+    private void saveBest() {
+        if (bestInBuffer) {
+            System.arraycopy(buffer, (int) (bestStart - bufferStart), bestChars, 0, bestLength);
+            bestInBuffer = false;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+public class StreamingTest {
+
+    private static int failures = 0;
+
+    public static void main(String[] args) {
+        System.out.println("Testing StreamingPalindromeFinder against brute force");
+        System.out.println();
+        testRandomQueries();
+        System.out.println("\n\n");
+        testPollingCost();
+
+        System.out.println();
+        if (failures > 0) {
+            System.out.println("FAILED: " + failures + " check(s) ⚠️");
+            System.exit(1);
+        }
+        System.out.println("All checks passed ✓");
+    }
+
+    /**
+     * Random streams on small alphabets, appended as single chars, char
+     * arrays and bytes, with queries in between and small blocks so that
+     * palindromes straddle block boundaries all the time. Whenever the
+     * longest palindrome so far is at most maxPalindromeLength long, every
+     * query must return the brute-force earliest longest; otherwise it must
+     * return a palindrome of at least maxPalindromeLength - 1 characters at
+     * the position reported.
+     */
+    public static void testRandomQueries() {
+        System.out.println("========================================");
+        System.out.println("STREAMING: random appends and queries");
+        System.out.println("========================================");
+        System.out.println();
+
+        Random random = new Random(8);
+        int trials = 3000;
+        long queries = 0;
+        int wrong = 0;
+
+        for (int t = 0; t < trials; t++) {
+            int maxPalindromeLength = 1 + random.nextInt(t % 2 == 0 ? 8 : 40);
+            int blockSize = 1 + random.nextInt(t % 3 == 0 ? 4 : 60);
+            int alphabet = 1 + random.nextInt(3);
+            StreamingPalindromeFinder stream = new StreamingPalindromeFinder(maxPalindromeLength, blockSize);
+            if (t % 10 == 0) {
+                // Reuse after a reset must behave like a fresh instance
+                for (int i = random.nextInt(100); i > 0; i--) {
+                    stream.append((char) ('a' + random.nextInt(alphabet)));
+                }
+                stream.getLongestLength();
+                stream.reset();
+            }
+
+            StringBuilder model = new StringBuilder();
+            boolean ok = true;
+            for (int step = 0, ops = random.nextInt(60); step < ops && ok; step++) {
+                char[] chunk = new char[random.nextInt(random.nextBoolean() ? 3 : 40)];
+                for (int i = 0; i < chunk.length; i++) {
+                    chunk[i] = (char) ('a' + random.nextInt(alphabet));
+                }
+                switch (random.nextInt(3)) {
+                case 0:
+                    for (char c : chunk) {
+                        stream.append(c);
+                    }
+                    break;
+                case 1:
+                    stream.append(chunk, 0, chunk.length);
+                    break;
+                default:
+                    byte[] bytes = new String(chunk).getBytes(StandardCharsets.ISO_8859_1);
+                    stream.append(bytes, 0, bytes.length);
+                    break;
+                }
+                model.append(chunk);
+
+                if (random.nextInt(3) > 0) {
+                    queries++;
+                    ok = check(stream, model.toString(), maxPalindromeLength);
+                }
+            }
+            ok = ok && check(stream, model.toString(), maxPalindromeLength);
+            if (!ok) {
+                wrong++;
+            }
+        }
+
+        System.out.printf("%-15s %-15s %-15s%n", "Trials", "Queries", "Wrong");
+        System.out.println("---------------------------------------------");
+        System.out.printf("%-15d %-15d %-15d", trials, queries, wrong);
+        report(wrong);
+    }
+
+    /**
+     * A run of one character keeps one palindrome growing to the end of
+     * the stream. Querying after every character of it must cost about
+     * what querying once at the end does, not a rescan of the buffer per
+     * query.
+     */
+    public static void testPollingCost() {
+        System.out.println("========================================");
+        System.out.println("STREAMING: polling after every character");
+        System.out.println("========================================");
+        System.out.println();
+
+        int length = 1 << 20;
+        int maxPalindromeLength = 1 << 16;
+        long polled = 0;
+        long once = 0;
+        long sink = 0;
+        for (int round = 0; round < 3; round++) {
+            StreamingPalindromeFinder stream = new StreamingPalindromeFinder(maxPalindromeLength);
+            long begin = System.nanoTime();
+            for (int i = 0; i < length; i++) {
+                stream.append('a');
+                sink += stream.getLongestLength();
+            }
+            polled = System.nanoTime() - begin;
+
+            stream.reset();
+            begin = System.nanoTime();
+            for (int i = 0; i < length; i++) {
+                stream.append('a');
+            }
+            sink += stream.getLongestLength();
+            once = System.nanoTime() - begin;
+        }
+
+        // Rescanning the buffer on every query would be ~10^5 times slower
+        double ratio = polled / (double) Math.max(once, 1);
+        System.out.printf("%-15s %-15s %-15s %-15s%n", "Characters", "Polled ms", "Once ms", "Ratio");
+        System.out.println("------------------------------------------------------------");
+        System.out.printf("%-15d %-15.1f %-15.1f %-15.1f", length, polled / 1e6, once / 1e6, ratio);
+        report(ratio > 20 || sink == 0 ? 1 : 0);
+    }
+
+    private static boolean check(StreamingPalindromeFinder stream, String text, int maxPalindromeLength) {
+        long expected = bruteForce(text);
+        long start = stream.getLongestStart();
+        int length = stream.getLongestLength();
+        String longest = stream.getLongest();
+        if (stream.position() != text.length() || longest.length() != length) {
+            return false;
+        }
+        if (PalindromeRange.length(expected) <= maxPalindromeLength) {
+            return start == PalindromeRange.start(expected) && length == PalindromeRange.length(expected)
+                    && longest.equals(text.substring((int) start, (int) start + length));
+        }
+        return length >= maxPalindromeLength - 1 && start >= 0 && start + length <= text.length()
+                && longest.equals(text.substring((int) start, (int) start + length)) && isPalindrome(longest);
+    }
+
+    /**
+     * Every center expanded pair by pair; the leftmost of the longest.
+     */
+    private static long bruteForce(String s) {
+        int bestStart = 0;
+        int bestLength = 0;
+        for (int center = 0; center < 2 * s.length() - 1; center++) {
+            int left = center / 2;
+            int right = left + (center & 1);
+            while (left >= 0 && right < s.length() && s.charAt(left) == s.charAt(right)) {
+                left--;
+                right++;
+            }
+            int length = right - left - 1;
+            if (length > bestLength || (length == bestLength && left + 1 < bestStart)) {
+                bestStart = left + 1;
+                bestLength = length;
+            }
+        }
+        return PalindromeRange.of(bestStart, bestLength);
+    }
+
+    private static boolean isPalindrome(String s) {
+        for (int i = 0, j = s.length() - 1; i < j; i++, j--) {
+            if (s.charAt(i) != s.charAt(j)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void report(int wrong) {
+        if (wrong > 0) {
+            System.out.print(" ⚠️");
+            failures++;
+        } else {
+            System.out.print(" ✓");
+        }
+        System.out.println();
+    }
+}